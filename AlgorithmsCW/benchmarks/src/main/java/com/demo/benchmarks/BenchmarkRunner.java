@@ -0,0 +1,31 @@
+package com.demo.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+    Entry point of benchmarks.jar: the usual JMH command line, with the GC profiler always on
+    so every result comes with its allocation rate and bytes per operation.
+    e.g. java -jar benchmarks/target/benchmarks.jar SolveBenchmark -p size=31 -p mode=A_STAR
+*/
+
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class);
+
+        // forked JVMs do not inherit system properties, so the input directory is passed on
+        String inputDirectory = System.getProperty(Instances.DIRECTORY_PROPERTY);
+        if (inputDirectory != null) {
+            options.jvmArgsAppend("-D" + Instances.DIRECTORY_PROPERTY + "=" + inputDirectory);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,37 @@
+package com.demo.benchmarks;
+
+import com.demo.util.InputParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// reading and validating one input file, the file stays in the page cache so this is the parsing cost
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InputParserBenchmark {
+
+    @Param({"7", "15", "31", "63"})
+    public int size;
+
+    @Param({"0"})
+    public int index;
+
+    @Benchmark
+    public int[] parse() throws IOException {
+        return InputParser.parser(Instances.path(size, index).toString());
+    }
+}
@@ -0,0 +1,28 @@
+package com.demo.benchmarks;
+
+import com.demo.util.InputParser;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/*
+    Loads the input/bounded_N_k.txt instances the benchmarks are parameterised by.
+    The directory is input/ under the working directory, or the benchmark.input system property.
+*/
+
+final class Instances {
+
+    static final String DIRECTORY_PROPERTY = "benchmark.input";
+
+    private Instances() {
+    }
+
+    static Path path(int size, int index) {
+        return Paths.get(System.getProperty(DIRECTORY_PROPERTY, "input"), "bounded_" + size + "_" + index + ".txt");
+    }
+
+    static int[] load(int size, int index) throws IOException {
+        return InputParser.parser(path(size, index).toString());
+    }
+}
@@ -0,0 +1,57 @@
+package com.demo.benchmarks;
+
+import com.demo.SearchResult;
+import com.demo.SolverMode;
+import com.demo.TreeSolver;
+import com.demo.TreeState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Full solve of one instance, target BST and heuristic tables included, per engine.
+    The harder 63 node instances take seconds per solve, so the default indices are the first three of each family,
+    pass -p index=0,1,2,3,4,5,6,7,8,9 (and -p mode=...) for the whole set.
+*/
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveBenchmark {
+
+    @Param({"7", "15", "31", "63"})
+    public int size;
+
+    @Param({"0", "1", "2"})
+    public int index;
+
+    @Param({"A_STAR", "IDA_STAR", "BIDIRECTIONAL"})
+    public SolverMode mode;
+
+    private TreeState initialState;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        initialState = new TreeState(Instances.load(size, index));
+    }
+
+    @Benchmark
+    public SearchResult solve() {
+        return TreeSolver.solve(initialState, mode);
+    }
+}
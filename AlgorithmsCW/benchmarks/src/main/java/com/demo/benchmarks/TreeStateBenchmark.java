@@ -0,0 +1,110 @@
+package com.demo.benchmarks;
+
+import com.demo.Decomposition;
+import com.demo.Heuristic;
+import com.demo.StateTable;
+import com.demo.TargetBST;
+import com.demo.TreeState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/*
+    The per-node operations of the search: swap, hashing, heuristic evaluation and the state table probe.
+    Swaps cycle through every edge of the tree, so no single position is measured on its own.
+*/
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeStateBenchmark {
+
+    @Param({"7", "15", "31", "63"})
+    public int size;
+
+    @Param({"0"})
+    public int index;
+
+    private int[] values;
+    private Heuristic heuristic;
+    private TreeState plainState; // no heuristic, what the target and the input are
+    private TreeState searchState; // tracks its heuristic, what every engine expands
+    private int[] swaps;
+    private TreeState[] neighbours; // one swap away from searchState, all stored in the table
+    private StateTable table;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        values = Instances.load(size, index);
+        plainState = new TreeState(values);
+        heuristic = new Heuristic(TargetBST.createTargetBST(plainState));
+        searchState = plainState.withHeuristic(heuristic);
+        swaps = Decomposition.allSwaps(size);
+
+        neighbours = new TreeState[swaps.length];
+        table = new StateTable(size);
+        for (int i = 0; i < swaps.length; i++) {
+            neighbours[i] = searchState.swap(swaps[i]);
+            table.updateGScore(neighbours[i], 1);
+        }
+    }
+
+    private int nextSwap() {
+        if (next == swaps.length) next = 0;
+        return next++;
+    }
+
+    @Benchmark
+    public TreeState swap() {
+        return plainState.swap(swaps[nextSwap()]);
+    }
+
+    // swap with the Zobrist hash and heuristic sum updated incrementally, as in the search
+    @Benchmark
+    public TreeState swapWithHeuristic() {
+        return searchState.swap(swaps[nextSwap()]);
+    }
+
+    // Zobrist hash of a state built from its values, against the O(1) update inside swap
+    @Benchmark
+    public long hashFromScratch() {
+        return new TreeState(values).getZobristHash();
+    }
+
+    @Benchmark
+    public int hashAfterSwap() {
+        return plainState.swap(swaps[nextSwap()]).hashCode();
+    }
+
+    // full heuristic evaluation over every value, pattern database groups included
+    @Benchmark
+    public int heuristicFull() {
+        return new TreeState(values, heuristic).getHeuristic();
+    }
+
+    @Benchmark
+    public int heuristicAfterSwap() {
+        return searchState.swap(swaps[nextSwap()]).getHeuristic();
+    }
+
+    @Benchmark
+    public int stateTableLookup() {
+        return table.getGScore(neighbours[nextSwap()]);
+    }
+}
@@ -0,0 +1,166 @@
+package com.demo;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/*
+    Anytime weighted A*: best-first search ordered by g + w * h instead of g + h.
+    With a consistent heuristic the first solution is at most w times longer than the optimal one, and it usually
+    comes after a small fraction of the nodes A* needs. The search then keeps going from the same open set,
+    dropping everything that cannot beat the best solution so far, and each shorter solution it finds replaces it.
+
+    f = g + h never goes down along a path, so the smallest f still in the open set only ever rises.
+    It is a lower bound on the optimal cost, and the search has proven its solution optimal once that bound reaches it
+    or the open set runs dry. When the deadline passes first, the best solution is returned with the bound it reached.
+    The deadline only counts once there is a solution, so the search never comes back empty handed.
+*/
+
+public class AnytimeSolver {
+
+    public static final double DEFAULT_WEIGHT = 2.0;
+    public static final long DEFAULT_TIME_LIMIT_MILLIS = 10_000;
+
+    private static final int WEIGHT_SCALE = 10; // weights are kept in tenths so the open set can use integer keys
+    private static final int DEADLINE_CHECK_INTERVAL = 1024; // expansions between two looks at the clock
+
+    private final TreeState initialState;
+    private final TreeState targetState;
+    private final int[] swaps; // child index of every swap the search may use
+    private final int weight; // w * WEIGHT_SCALE
+    private final long deadlineNanos;
+    private final Consumer<SearchResult> onImprovement;
+
+    private final OpenList<SearchNode> openSet = new OpenList<>(); // bucketed by weighted key, then h
+    private final StateTable stateTable;
+    private int[] fCounts = new int[64]; // open entries per unweighted f, for the lower bound
+    private int minF; // no open entry has an f below this
+    private int nodesExplored;
+    private int nodesGenerated;
+    private SearchStats stats;
+    private SearchNode bestNode;
+    private int bestCost = Integer.MAX_VALUE;
+
+    private AnytimeSolver(TreeState initialState, TreeState targetState, int[] swaps, double weight, long timeLimitMillis,
+                          Consumer<SearchResult> onImprovement) {
+        this.initialState = initialState;
+        this.targetState = targetState;
+        this.swaps = swaps;
+        this.weight = (int) Math.round(weight * WEIGHT_SCALE);
+        this.deadlineNanos = System.nanoTime() + timeLimitMillis * 1_000_000L;
+        this.onImprovement = onImprovement;
+        this.stateTable = new StateTable(initialState.getNumberOfNode());
+    }
+
+    public static SearchResult solve(TreeState initialState, TreeState targetState, Heuristic heuristic) {
+        return solve(initialState, targetState, heuristic, Decomposition.allSwaps(initialState.getNumberOfNode()));
+    }
+
+    public static SearchResult solve(TreeState initialState, TreeState targetState, Heuristic heuristic, int[] swaps) {
+        return solve(initialState, targetState, heuristic, swaps, DEFAULT_WEIGHT, DEFAULT_TIME_LIMIT_MILLIS, null);
+    }
+
+    /*
+        weight must be at least 1, a weight of 1 is plain A*
+        onImprovement, if not null, is called with every new best solution as soon as it is found
+    */
+    public static SearchResult solve(TreeState initialState, TreeState targetState, Heuristic heuristic, int[] swaps,
+                                     double weight, long timeLimitMillis, Consumer<SearchResult> onImprovement) {
+        return solve(initialState, targetState, heuristic, swaps, weight, timeLimitMillis, onImprovement,
+                new SearchStats(SolverMode.ANYTIME, initialState.getNumberOfNode()));
+    }
+
+    // same, reporting the proven lower bound and the node counts to stats while it runs
+    public static SearchResult solve(TreeState initialState, TreeState targetState, Heuristic heuristic, int[] swaps,
+                                     double weight, long timeLimitMillis, Consumer<SearchResult> onImprovement,
+                                     SearchStats stats) {
+        if (weight < 1.0) {
+            throw new IllegalArgumentException("Weight must be at least 1, got " + weight);
+        }
+        AnytimeSolver solver = new AnytimeSolver(initialState, targetState, swaps, weight, timeLimitMillis, onImprovement);
+        solver.stats = stats;
+        solver.search(initialState.withHeuristic(heuristic));
+        stats.closedSetSize(solver.stateTable.size());
+
+        if (solver.bestNode == null) return null;
+        return solver.result();
+    }
+
+    private void search(TreeState startState) {
+        SearchNode start = new SearchNode(startState, null, -1, 0, startState.getHeuristic());
+        stateTable.updateGScore(startState, 0);
+        push(start);
+
+        while (!openSet.isEmpty()) {
+            if (lowerBound() >= bestCost) break; // nothing left can give a shorter solution
+
+            if (nodesExplored % DEADLINE_CHECK_INTERVAL == 0 && bestNode != null
+                    && System.nanoTime() - deadlineNanos >= 0) {
+                break; // out of time, the best solution so far is returned with its bound
+            }
+            if (Thread.currentThread().isInterrupted()) break; // same as a deadline, but possibly with no solution yet
+
+            SearchNode current = pop();
+            if (current.fScore >= bestCost) continue; // cannot beat the best solution any more
+            if (current.gScore != stateTable.getGScore(current.state)) continue; // a shorter path arrived later
+            if (!stateTable.close(current.state, current.gScore)) continue;
+            if ((++nodesExplored & SearchStats.PROGRESS_MASK) == 0) {
+                stats.boundReached(lowerBound());
+                stats.progress(nodesExplored, nodesGenerated, openSet.size(), stateTable.size());
+            }
+
+            for (int child : swaps) {
+                if (child == current.swappedChild) continue; // would only undo the swap that led here
+                TreeState newState = current.state.swap(child);
+                nodesGenerated++;
+                int tentativeG = current.gScore + 1;
+                int hScore = newState.getHeuristic();
+                if (tentativeG + hScore >= bestCost) continue;
+
+                // a state explored through a longer path is opened again, the weighted order can reach it too early
+                if (!stateTable.lowerGScore(newState, tentativeG)) continue;
+                SearchNode node = new SearchNode(newState, current, child, tentativeG, hScore);
+
+                // the goal is taken as soon as it is generated, there is no need to wait for it to come out of the open set
+                if (hScore == 0 && newState.equals(targetState)) {
+                    improve(node);
+                    continue;
+                }
+                push(node);
+            }
+        }
+
+        // the open set is empty or bounded by the solution, so nothing shorter exists
+        if (openSet.isEmpty() || lowerBound() >= bestCost) minF = bestCost;
+    }
+
+    private void improve(SearchNode goal) {
+        bestNode = goal;
+        bestCost = goal.gScore;
+        if (onImprovement != null) onImprovement.accept(result());
+    }
+
+    private SearchResult result() {
+        return SearchResult.fromMoves(initialState, bestNode.toMoves(), nodesExplored, nodesGenerated,
+                Math.min(lowerBound(), bestCost));
+    }
+
+    private void push(SearchNode node) {
+        openSet.push(node, node.gScore * WEIGHT_SCALE + weight * node.hScore, node.hScore);
+        if (node.fScore >= fCounts.length) fCounts = Arrays.copyOf(fCounts, Math.max(fCounts.length * 2, node.fScore + 1));
+        fCounts[node.fScore]++;
+        if (node.fScore < minF) minF = node.fScore;
+    }
+
+    private SearchNode pop() {
+        SearchNode node = openSet.pop();
+        fCounts[node.fScore]--;
+        return node;
+    }
+
+    // smallest f in the open set, stale entries can only keep it lower than it could be
+    private int lowerBound() {
+        if (openSet.isEmpty()) return minF;
+        while (fCounts[minF] == 0) minF++;
+        return minF;
+    }
+}
@@ -0,0 +1,160 @@
+package com.demo;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+    Non-blocking front end of TreeSolver: every solve returns a CompletableFuture right away
+    and runs on a fixed pool of solver threads, one per core unless told otherwise.
+
+    A solve stops when its deadline passes, when its CancellationToken is cancelled or when its future is cancelled.
+    All three interrupt the solver thread, which every engine checks once per expansion, so the thread is free again
+    within one expansion. The deadline counts from the call, time spent waiting for a solver thread included,
+    so a solve that waited too long in the queue is dropped without being started.
+
+    The future completes with
+    - the result, also when the deadline passed but the engine still had a solution to give (ANYTIME returns its best one,
+      look at SearchResult.isProvenOptimal())
+    - null if the tree has no solution
+    - a TimeoutException if the deadline passed first, a CancellationException if it was cancelled,
+      or whatever the solve threw
+    Progress (f bound, nodes explored, set sizes) goes to the SearchListener given with the solve, from the solver thread.
+*/
+
+public class AsyncSolver implements AutoCloseable {
+
+    private final SolverOptions options;
+    private final ExecutorService solvers;
+    private final ScheduledThreadPoolExecutor timers; // one thread that fires the deadlines
+    private final Set<CompletableFuture<SearchResult>> pending = ConcurrentHashMap.newKeySet(); // not completed yet
+
+    public AsyncSolver() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public AsyncSolver(int threads) {
+        this(threads, SolverOptions.DEFAULT);
+    }
+
+    public AsyncSolver(int threads, SolverOptions options) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1, got " + threads);
+        }
+        // regions one after the other on the solver thread, so the interrupt reaches every one of them
+        this.options = options.withParallelRegions(false);
+        AtomicInteger count = new AtomicInteger();
+        this.solvers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "async-solver-" + count.getAndIncrement());
+            thread.setDaemon(true); // an abandoned solver must not keep the JVM alive
+            return thread;
+        });
+        this.timers = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "async-solver-deadlines");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timers.setRemoveOnCancelPolicy(true); // most solves finish before their deadline
+    }
+
+    public CompletableFuture<SearchResult> solve(TreeState initialState, SolverMode mode) {
+        return solve(initialState, mode, null, null, null);
+    }
+
+    public CompletableFuture<SearchResult> solve(TreeState initialState, SolverMode mode, Duration timeout) {
+        return solve(initialState, mode, Instant.now().plus(timeout), null, null);
+    }
+
+    /*
+        deadline, token and listener may each be null, for no deadline, no token and no progress reports
+        one token can be given to many solves to cancel them together
+    */
+    public CompletableFuture<SearchResult> solve(TreeState initialState, SolverMode mode, Instant deadline,
+                                                 CancellationToken token, SearchListener listener) {
+        CompletableFuture<SearchResult> future = new CompletableFuture<>();
+        CancellationToken stop = new CancellationToken(); // stops this solve alone, whatever the reason
+        AtomicBoolean expired = new AtomicBoolean();
+
+        Runnable cancelFuture = () -> future.cancel(false);
+        if (token != null) token.onCancel(cancelFuture);
+        pending.add(future);
+        future.whenComplete((result, error) -> {
+            pending.remove(future);
+            stop.cancel(); // a future cancelled by the caller stops the search too
+        });
+
+        ScheduledFuture<?> timer = null;
+        if (deadline != null) {
+            long delayNanos = Duration.between(Instant.now(), deadline).toNanos();
+            timer = timers.schedule(() -> {
+                expired.set(true);
+                stop.cancel();
+            }, Math.max(0, delayNanos), TimeUnit.NANOSECONDS);
+        }
+        ScheduledFuture<?> deadlineTimer = timer;
+
+        try {
+            solvers.execute(() -> {
+                try {
+                    run(initialState, mode, options, listener, future, stop, expired);
+                } finally {
+                    if (deadlineTimer != null) deadlineTimer.cancel(false);
+                    if (token != null) token.removeOnCancel(cancelFuture);
+                }
+            });
+        } catch (RuntimeException e) { // the solver was closed
+            future.completeExceptionally(e);
+            if (timer != null) timer.cancel(false);
+            if (token != null) token.removeOnCancel(cancelFuture);
+        }
+        return future;
+    }
+
+    private static void run(TreeState initialState, SolverMode mode, SolverOptions options, SearchListener listener,
+                            CompletableFuture<SearchResult> future, CancellationToken stop, AtomicBoolean expired) {
+        if (!stop.enter()) { // stopped while it was waiting for a thread
+            finishStopped(future, expired);
+            return;
+        }
+        try {
+            SearchResult result = TreeSolver.solve(initialState, mode, options, listener);
+            if (result != null) {
+                future.complete(result);
+            } else if (stop.isCancelled()) {
+                finishStopped(future, expired);
+            } else {
+                future.complete(null);
+            }
+        } catch (Throwable e) {
+            // the interrupt closes the external engine's spill files under it, that error is only the stop showing
+            if (stop.isCancelled()) finishStopped(future, expired);
+            else future.completeExceptionally(e);
+        } finally {
+            stop.exit();
+            Thread.interrupted(); // a cancel that came in late must not reach the next solve on this thread
+        }
+    }
+
+    private static void finishStopped(CompletableFuture<SearchResult> future, AtomicBoolean expired) {
+        if (expired.get()) future.completeExceptionally(new TimeoutException("Deadline passed before a solution was found"));
+        else future.cancel(false);
+    }
+
+    // cancels every solve that has not finished, running or still waiting for a thread
+    @Override
+    public void close() {
+        for (CompletableFuture<SearchResult> future : pending) future.cancel(false);
+        solvers.shutdownNow();
+        timers.shutdownNow();
+    }
+}
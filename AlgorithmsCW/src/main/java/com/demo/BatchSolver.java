@@ -0,0 +1,394 @@
+package com.demo;
+
+import com.demo.util.InputParser;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/*
+    Batch mode: solves every input file of a directory or glob and writes one result line per instance.
+
+    Every instance gets a virtual thread that reads the file, hands the solve to a fixed pool of platform threads
+    (one per core, so CPU-bound searches never outnumber the cores) and writes the result line.
+    The timeout of an instance starts when a solver thread picks it up, not while it waits in the queue.
+    On a timeout the solver thread is interrupted, every engine checks for that and gives up,
+    so the thread is free for the next instance. ANYTIME and BRANCH_AND_BOUND give up with the best solution they have,
+    which is still written out. A row is "solved" when its solution is proven optimal and "bounded" when it only has
+    its lower bound, either because the engine's own deadline passed or because the timeout did.
+
+    runStream() does the same for a file or stdin holding one tree per line, read as a stream (see InputParser.instances),
+    each row naming its line as file:line. Only a bounded number of trees wait for a solver at a time,
+    so an input of millions of trees never sits in memory.
+
+    Results are JSON lines, or CSV with a header when the output file name ends in .csv.
+    allocated_bytes is what the solver thread allocated for the instance (the parallel engine's own workers are not counted),
+    peak_heap_bytes is the peak heap use of the whole JVM so far, which instances solved at the same time share.
+*/
+
+public class BatchSolver {
+
+    public static final long DEFAULT_TIMEOUT_SECONDS = 60;
+    public static final String STANDARD_INPUT = "-";
+
+    private static final int STREAM_IN_FLIGHT = 1024; // trees read from a stream but not written out yet
+    private static final long UNWIND_MILLIS = 1000; // wait for an interrupted engine to hand back its best solution
+
+    private static final String[] COLUMNS = {"file", "nodes", "status", "swaps", "lower_bound", "nodes_explored",
+            "nodes_generated", "time_ms", "allocated_bytes", "peak_heap_bytes", "verified", "error"};
+
+    private final SolverMode mode;
+    private final SolverOptions options;
+    private final long timeoutMillis;
+    private final ExecutorService solvers;
+    // verifiers of each solver thread by tree size, a verifier is not thread safe but can check any number of trees
+    private final ThreadLocal<Map<Integer, SolutionVerifier>> verifiers = ThreadLocal.withInitial(HashMap::new);
+
+    private BatchSolver(SolverMode mode, SolverOptions options, long timeoutMillis, int threads) {
+        this.mode = mode;
+        this.options = options.withParallelRegions(false); // the batch already runs one solve per core
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger count = new AtomicInteger();
+        this.solvers = Executors.newFixedThreadPool(threads,
+                task -> new Thread(task, "batch-solver-" + count.getAndIncrement()));
+    }
+
+    /*
+        solves every file matched by input (a directory or a glob such as input/bounded_*.txt) and writes the results to output
+        returns the number of instances with a solution, proven optimal or bounded
+    */
+    public static int run(String input, SolverMode mode, long timeoutSeconds, Path output) throws IOException {
+        return run(input, mode, SolverOptions.DEFAULT, timeoutSeconds, output);
+    }
+
+    // same, with the settings of every solve from options
+    public static int run(String input, SolverMode mode, SolverOptions options, long timeoutSeconds, Path output)
+            throws IOException {
+        if (timeoutSeconds < 1) {
+            throw new IllegalArgumentException("Timeout must be at least 1 second, got " + timeoutSeconds);
+        }
+        List<Path> files = resolveInputs(input);
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No input files match " + input);
+        }
+        // the parallel engine already uses every core for one instance
+        int threads = mode == SolverMode.PARALLEL ? 1 : Runtime.getRuntime().availableProcessors();
+        BatchSolver batch = new BatchSolver(mode, options, TimeUnit.SECONDS.toMillis(timeoutSeconds), threads);
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        AtomicInteger solved = new AtomicInteger();
+        try (ResultWriter writer = new ResultWriter(output);
+             ExecutorService io = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Path file : files) {
+                io.submit(() -> {
+                    String[] row = batch.solveFile(file);
+                    if (hasSolution(row)) solved.incrementAndGet();
+                    writer.write(row);
+                });
+            }
+        } finally {
+            batch.solvers.shutdownNow();
+        }
+        return solved.get();
+    }
+
+    /*
+        solves every tree of input (a file with one tree per line, or - for stdin) and writes the results to output
+        returns the number of instances with a solution, proven optimal or bounded
+    */
+    public static int runStream(String input, SolverMode mode, long timeoutSeconds, Path output) throws IOException {
+        return runStream(input, mode, SolverOptions.DEFAULT, timeoutSeconds, output);
+    }
+
+    // same, with the settings of every solve from options
+    public static int runStream(String input, SolverMode mode, SolverOptions options, long timeoutSeconds, Path output)
+            throws IOException {
+        if (timeoutSeconds < 1) {
+            throw new IllegalArgumentException("Timeout must be at least 1 second, got " + timeoutSeconds);
+        }
+        int threads = mode == SolverMode.PARALLEL ? 1 : Runtime.getRuntime().availableProcessors();
+        BatchSolver batch = new BatchSolver(mode, options, TimeUnit.SECONDS.toMillis(timeoutSeconds), threads);
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        AtomicInteger solved = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(STREAM_IN_FLIGHT);
+        String name = input.equals(STANDARD_INPUT) ? "stdin" : input;
+        try (InputParser.InstanceReader reader = input.equals(STANDARD_INPUT)
+                ? InputParser.instances(System.in) : InputParser.instances(Paths.get(input));
+             ResultWriter writer = new ResultWriter(output);
+             ExecutorService io = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (true) {
+                int[] values;
+                try {
+                    values = reader.next();
+                } catch (IllegalArgumentException e) {
+                    String[] row = new String[COLUMNS.length];
+                    row[0] = name + ":" + reader.getLineNumber();
+                    writer.write(fail(row, "error", e.getMessage()));
+                    continue;
+                }
+                if (values == null) break;
+
+                String instance = name + ":" + reader.getLineNumber();
+                inFlight.acquireUninterruptibly();
+                io.submit(() -> {
+                    try {
+                        String[] row = batch.solveInstance(instance, values);
+                        if (hasSolution(row)) solved.incrementAndGet();
+                        writer.write(row);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } finally {
+            batch.solvers.shutdownNow();
+        }
+        return solved.get();
+    }
+
+    // a directory gives every regular file in it, anything else is read as a glob relative to its first fixed directories
+    public static List<Path> resolveInputs(String input) throws IOException {
+        Path path = Paths.get(input);
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.list(path)) {
+                return files.filter(Files::isRegularFile).sorted().toList();
+            }
+        }
+
+        Path base = path.isAbsolute() ? path.getRoot() : Paths.get("");
+        int firstPattern = 0;
+        while (firstPattern < path.getNameCount() - 1 && !isPattern(path.getName(firstPattern).toString())) {
+            base = base.resolve(path.getName(firstPattern++));
+        }
+        if (firstPattern == path.getNameCount() - 1 && !isPattern(path.getFileName().toString())) {
+            return Files.isRegularFile(path) ? List.of(path) : List.of();
+        }
+
+        FileSystem fileSystem = path.getFileSystem();
+        PathMatcher matcher = fileSystem.getPathMatcher("glob:" + path.subpath(firstPattern, path.getNameCount()));
+        Path root = base.toString().isEmpty() ? Paths.get(".") : base;
+        if (!Files.isDirectory(root)) return List.of();
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(file -> matcher.matches(root.relativize(file)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static boolean isPattern(String name) {
+        return name.chars().anyMatch(c -> c == '*' || c == '?' || c == '[' || c == '{');
+    }
+
+    // runs on the instance's virtual thread, returns the result row in COLUMNS order
+    private String[] solveFile(Path file) {
+        int[] values;
+        try {
+            values = InputParser.parser(file.toString());
+        } catch (IOException | IllegalArgumentException e) {
+            String[] row = new String[COLUMNS.length];
+            row[0] = file.toString();
+            return fail(row, "error", e.getMessage());
+        }
+        return solveInstance(file.toString(), values);
+    }
+
+    // same, for a tree that is already parsed
+    private String[] solveInstance(String name, int[] values) {
+        String[] row = new String[COLUMNS.length];
+        row[0] = name;
+        TreeState initialState;
+        try {
+            initialState = new TreeState(values);
+        } catch (IllegalArgumentException e) {
+            return fail(row, "error", e.getMessage());
+        }
+        row[1] = String.valueOf(initialState.getNumberOfNode());
+
+        CountDownLatch started = new CountDownLatch(1);
+        long[] stats = new long[2]; // time in ms and allocated bytes, written by the solver thread
+        boolean[] verified = new boolean[1]; // also written by the solver thread, which has its own verifiers
+        Thread[] worker = new Thread[1]; // the solver thread while it runs this instance, guarded by itself
+        Future<SearchResult> future = solvers.submit(() -> {
+            synchronized (worker) {
+                worker[0] = Thread.currentThread();
+            }
+            started.countDown();
+            long allocatedBefore = allocatedBytes();
+            long startTime = System.nanoTime();
+            SearchResult solved;
+            try {
+                solved = TreeSolver.solve(initialState, mode, options);
+            } finally {
+                stats[0] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+                stats[1] = allocatedBytes() - allocatedBefore;
+                synchronized (worker) {
+                    worker[0] = null; // a late interrupt must not reach the next instance
+                }
+            }
+            if (solved != null) {
+                int n = initialState.getNumberOfNode();
+                verified[0] = verifiers.get().computeIfAbsent(n, SolutionVerifier::new).verify(initialState, solved);
+            }
+            return solved;
+        });
+
+        SearchResult result;
+        try {
+            started.await();
+            try {
+                result = future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // interrupted rather than cancelled, so an engine that keeps a best solution can still return it
+                synchronized (worker) {
+                    if (worker[0] != null) worker[0].interrupt();
+                }
+                result = future.get(UNWIND_MILLIS, TimeUnit.MILLISECONDS);
+                if (result == null) {
+                    row[7] = String.valueOf(timeoutMillis);
+                    return fail(row, "timeout", null);
+                }
+            }
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            row[7] = String.valueOf(timeoutMillis);
+            return fail(row, "timeout", null);
+        } catch (ExecutionException e) {
+            return fail(row, "error", String.valueOf(e.getCause()));
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return fail(row, "error", "interrupted");
+        }
+
+        row[7] = String.valueOf(stats[0]);
+        row[8] = String.valueOf(stats[1]);
+        row[9] = String.valueOf(peakHeapBytes());
+        if (result == null) return fail(row, "no_solution", null);
+        row[2] = result.isProvenOptimal() ? "solved" : "bounded";
+        row[3] = String.valueOf(result.getNumberOfSwaps());
+        row[4] = String.valueOf(result.getLowerBound());
+        row[5] = String.valueOf(result.getNodesExplored());
+        row[6] = String.valueOf(result.getNodesGenerated());
+        row[10] = String.valueOf(verified[0]);
+        return row;
+    }
+
+    private static boolean hasSolution(String[] row) {
+        return "solved".equals(row[2]) || "bounded".equals(row[2]);
+    }
+
+    private static String[] fail(String[] row, String status, String error) {
+        row[2] = status;
+        row[11] = error;
+        return row;
+    }
+
+    // bytes allocated by the current thread so far, or 0 if the JVM cannot tell
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported()) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+
+    // heap use of the JVM at its peak since the pools were last reset
+    static long peakHeapBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+
+    // value as a JSON string, with quotes, backslashes and control characters escaped
+    static String quoteJson(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') quoted.append('\\').append(c);
+            else if (c < 0x20) quoted.append(String.format("\\u%04x", (int) c));
+            else quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+
+    // one line per instance, in the order they finish, flushed right away so a running batch can be followed
+    private static class ResultWriter implements Closeable {
+
+        private final BufferedWriter writer;
+        private final boolean csv;
+
+        ResultWriter(Path output) throws IOException {
+            this.csv = output.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv");
+            this.writer = Files.newBufferedWriter(output);
+            if (csv) writeLine(String.join(",", COLUMNS));
+        }
+
+        synchronized void write(String[] row) {
+            StringBuilder line = new StringBuilder();
+            if (!csv) line.append('{');
+            for (int i = 0; i < COLUMNS.length; i++) {
+                if (i > 0) line.append(',');
+                if (csv) {
+                    if (row[i] != null) line.append(quoteCsv(row[i]));
+                } else {
+                    line.append('"').append(COLUMNS[i]).append("\":").append(toJson(i, row[i]));
+                }
+            }
+            if (!csv) line.append('}');
+            writeLine(line.toString());
+        }
+
+        private void writeLine(String line) {
+            try {
+                writer.write(line);
+                writer.newLine();
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write batch results", e);
+            }
+        }
+
+        // the text columns are quoted, the others are numbers, null when the instance did not get that far
+        private static String toJson(int column, String value) {
+            if (value == null) return "null";
+            if (column != 0 && column != 2 && column != 11) return value;
+            return quoteJson(value);
+        }
+
+        private static String quoteCsv(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) return value;
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+}
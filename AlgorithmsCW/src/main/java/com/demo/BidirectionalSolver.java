@@ -0,0 +1,182 @@
+package com.demo;
+
+/*
+    Bidirectional search that meets in the middle (MM): one frontier grows from the input tree towards the target BST,
+    the other from the target back towards the input. A swap is its own inverse, so the backward search uses the same moves,
+    with a heuristic aimed at the input tree instead.
+
+    Both frontiers are ordered by priority max(f, 2g + 1). A node past the middle of the path has 2g + 1 above the optimal cost,
+    so neither side expands beyond the midpoint and each search only goes about half as deep as A* would.
+    The smallest priority on either side is a lower bound on the optimal cost.
+
+    Every generated state is looked up in the other direction's state table, and the cheapest meeting found so far is kept.
+    The search stops once that meeting is no longer than the smallest priority.
+    Both halves of the path are rebuilt by walking down the stored g-scores from the meeting state, so no parent links are kept.
+*/
+
+public class BidirectionalSolver {
+
+    private final Frontier forward;
+    private final Frontier backward;
+    private int bestCost = Integer.MAX_VALUE; // length of the cheapest path through a meeting state found so far
+    private TreeState meetingState;
+    private int nodesExplored;
+    private int nodesGenerated;
+    private long duplicates; // handed to stats with the progress reports, see SearchStats
+    private int reportedBound = -1;
+    private SearchStats stats;
+
+    private BidirectionalSolver(TreeState initialState, TreeState targetState, Heuristic towardTarget, int[] swaps) {
+        forward = new Frontier(initialState.withHeuristic(towardTarget), swaps);
+        backward = new Frontier(targetState.withHeuristic(new Heuristic(initialState)), swaps);
+    }
+
+    public static SearchResult solve(TreeState initialState, TreeState targetState, Heuristic heuristic) {
+        return solve(initialState, targetState, heuristic, Decomposition.allSwaps(initialState.getNumberOfNode()));
+    }
+
+    public static SearchResult solve(TreeState initialState, TreeState targetState, Heuristic heuristic, int[] swaps) {
+        return solve(initialState, targetState, heuristic, swaps,
+                new SearchStats(SolverMode.BIDIRECTIONAL, initialState.getNumberOfNode()));
+    }
+
+    // same, reporting the lower bound and the node counts to stats while it runs
+    public static SearchResult solve(TreeState initialState, TreeState targetState, Heuristic heuristic, int[] swaps,
+                                     SearchStats stats) {
+        BidirectionalSolver solver = new BidirectionalSolver(initialState, targetState, heuristic, swaps);
+        solver.stats = stats;
+        boolean found = solver.search();
+        stats.duplicates(solver.duplicates);
+        stats.closedSetSize(solver.forward.table.size() + solver.backward.table.size());
+        if (!found) return null;
+
+        // forward half is walked from the meeting state back to the input, so it is reversed
+        int[] toInput = solver.forward.pathToRoot(solver.meetingState);
+        int[] toTarget = solver.backward.pathToRoot(solver.meetingState);
+
+        int[] moves = new int[toInput.length + toTarget.length];
+        for (int i = 0; i < toInput.length; i++) {
+            moves[i] = toInput[toInput.length - 1 - i];
+        }
+        System.arraycopy(toTarget, 0, moves, toInput.length, toTarget.length);
+        return SearchResult.fromMoves(initialState, moves, solver.nodesExplored, solver.nodesGenerated, moves.length);
+    }
+
+    private boolean search() {
+        while (true) {
+            if (forward.open.isEmpty() && backward.open.isEmpty()) break;
+            if (Thread.currentThread().isInterrupted()) return false; // a meeting found so far may not be the shortest
+
+            // no path through an unexplored state can be shorter than the smallest priority
+            int lowerBound = Math.min(forward.minPriority(), backward.minPriority());
+            if (bestCost <= lowerBound) break;
+            if (lowerBound > reportedBound) {
+                reportedBound = lowerBound;
+                stats.boundReached(lowerBound);
+            }
+
+            // grow the side with the smaller priority, the smaller frontier on a tie
+            int forwardPriority = forward.minPriority();
+            int backwardPriority = backward.minPriority();
+            boolean expandForward = forwardPriority < backwardPriority
+                    || (forwardPriority == backwardPriority && forward.open.size() <= backward.open.size());
+            if (expandForward) expand(forward, backward);
+            else expand(backward, forward);
+        }
+        return meetingState != null;
+    }
+
+    private void expand(Frontier side, Frontier other) {
+        Entry current = side.open.pop();
+        if (!side.table.close(current.state, current.gScore)) {
+            duplicates++;
+            return;
+        }
+        if ((++nodesExplored & SearchStats.PROGRESS_MASK) == 0) {
+            stats.progress(nodesExplored, nodesGenerated, duplicates, forward.open.size() + backward.open.size(),
+                    forward.table.size() + backward.table.size());
+        }
+
+        for (int child : side.swaps) {
+            if (child == current.lastMove) continue; // would only undo the swap that led here
+            TreeState newState = current.state.swap(child);
+            nodesGenerated++;
+            int tentativeG = current.gScore + 1;
+
+            if (side.table.isClosed(newState) || !side.table.updateGScore(newState, tentativeG)) continue;
+            side.push(new Entry(newState, tentativeG, newState.getHeuristic(), child));
+
+            // check whether the other search has already reached this state
+            int otherG = other.table.getGScore(newState);
+            if (otherG != Integer.MAX_VALUE && tentativeG + otherG < bestCost) {
+                bestCost = tentativeG + otherG;
+                meetingState = newState;
+            }
+        }
+    }
+
+    // one direction of the search: its own open set and state table
+    private static class Frontier {
+
+        final OpenList<Entry> open = new OpenList<>(); // bucketed by priority, then f
+        final StateTable table;
+        final int[] swaps; // child index of every swap the search may use
+
+        Frontier(TreeState root, int[] swaps) {
+            this.table = new StateTable(root.getNumberOfNode());
+            this.swaps = swaps;
+            table.updateGScore(root, 0);
+            push(new Entry(root, 0, root.getHeuristic(), 0));
+        }
+
+        void push(Entry entry) {
+            open.push(entry, entry.priority, entry.fScore);
+        }
+
+        // stale entries are left in the list, they can only make this bound lower, never wrong
+        int minPriority() {
+            return open.peekF();
+        }
+
+        /*
+            Every stored g-score belongs to a real path from the root, so from a state with score g
+            some neighbour has score g - 1. Following those neighbours reaches the root in g swaps.
+        */
+        int[] pathToRoot(TreeState state) {
+            int g = table.getGScore(state);
+            int[] moves = new int[g];
+            for (int step = 0; step < moves.length; step++) {
+                for (int child : swaps) {
+                    TreeState previous = state.swap(child);
+                    if (table.getGScore(previous) == g - 1) {
+                        moves[step] = child;
+                        state = previous;
+                        g--;
+                        break;
+                    }
+                }
+            }
+            return moves;
+        }
+    }
+
+    // open set entry, popped by lower priority and then lower f
+    private static class Entry {
+
+        final TreeState state;
+        final int gScore;
+        final int hScore;
+        final int fScore;
+        final int priority; // max(f, 2g + 1)
+        final int lastMove; // child index of the swap that produced this state, 0 for the root
+
+        Entry(TreeState state, int gScore, int hScore, int lastMove) {
+            this.state = state;
+            this.lastMove = lastMove;
+            this.gScore = gScore;
+            this.hScore = hScore;
+            this.fScore = gScore + hScore;
+            this.priority = Math.max(fScore, 2 * gScore + 1);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.demo;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/*
+    Depth-first branch and bound: one depth-first search under the length of the best solution found so far.
+    The first best solution comes from GreedySolver before the search starts, so there is always one to return,
+    and every path whose g + h cannot beat it is cut. Each shorter solution the search reaches replaces it
+    and tightens the cut for the rest of the search.
+
+    Like IdaStarSolver the tree is swapped in place and the swaps come from MovePruning with canonical ordering,
+    so memory stays at O(depth). The swaps after each tree are tried in order of their heuristic, lowest first,
+    which reaches short solutions early, and once one of them is cut all the ones after it are too.
+    When the search runs out, no shorter solution exists and the best one is optimal. When the deadline passes first,
+    the best one is returned with the heuristic of the input as its lower bound.
+*/
+
+public class BranchAndBoundSolver {
+
+    public static final long DEFAULT_TIME_LIMIT_MILLIS = 10_000;
+
+    private static final int DEADLINE_CHECK_INTERVAL = 1 << 12; // expansions between two looks at the clock
+
+    private final TreeState initialState;
+    private final Heuristic heuristic;
+    private final SearchStats stats;
+    private final int[][] successors; // swaps to try after each swap, see MovePruning
+    private final int[] values; // value at every position, swapped in place
+    private final int[] positions; // position of every value, kept in step with values
+    private final long deadlineNanos;
+    private final Consumer<SearchResult> onImprovement;
+
+    private int[] moves; // child index of every swap on the current path
+    private int[][] order; // swaps of the tree at each depth, sorted by heuristic
+    private int[][] deltas; // change of the half-swap sum of each of those swaps
+    private int heuristicSum; // half-swap sum of the current tree
+    private int lowerBound; // heuristic of the input, all that is proven until the search runs out
+    private int[] bestMoves;
+    private int bestLength;
+    private int nodesExplored;
+    private int nodesGenerated;
+    private boolean stopped; // deadline or interrupt, the search unwinds without finishing
+
+    private BranchAndBoundSolver(TreeState initialState, Heuristic heuristic, int[] swaps, long timeLimitMillis,
+                                 Consumer<SearchResult> onImprovement, SearchStats stats) {
+        this.initialState = initialState;
+        this.heuristic = heuristic;
+        this.stats = stats;
+        int numberOfNodes = initialState.getNumberOfNode();
+        this.successors = MovePruning.successors(numberOfNodes, swaps, true);
+        this.values = initialState.toArray();
+        this.positions = new int[numberOfNodes + 1];
+        for (int i = 0; i < numberOfNodes; i++) {
+            positions[values[i]] = i;
+        }
+        this.heuristicSum = heuristic.evaluate(positions);
+        this.deadlineNanos = System.nanoTime() + timeLimitMillis * 1_000_000L;
+        this.onImprovement = onImprovement;
+    }
+
+    public static SearchResult solve(TreeState initialState, TreeState targetState, Heuristic heuristic) {
+        return solve(initialState, targetState, heuristic, Decomposition.allSwaps(initialState.getNumberOfNode()));
+    }
+
+    public static SearchResult solve(TreeState initialState, TreeState targetState, Heuristic heuristic, int[] swaps) {
+        return solve(initialState, targetState, heuristic, swaps, DEFAULT_TIME_LIMIT_MILLIS, null);
+    }
+
+    // onImprovement, if not null, is called with the greedy solution and then with every shorter one as soon as it is found
+    public static SearchResult solve(TreeState initialState, TreeState targetState, Heuristic heuristic, int[] swaps,
+                                     long timeLimitMillis, Consumer<SearchResult> onImprovement) {
+        return solve(initialState, targetState, heuristic, swaps, timeLimitMillis, onImprovement,
+                new SearchStats(SolverMode.BRANCH_AND_BOUND, initialState.getNumberOfNode()));
+    }
+
+    // same, reporting the node counts to stats while it runs
+    public static SearchResult solve(TreeState initialState, TreeState targetState, Heuristic heuristic, int[] swaps,
+                                     long timeLimitMillis, Consumer<SearchResult> onImprovement, SearchStats stats) {
+        BranchAndBoundSolver solver = new BranchAndBoundSolver(initialState, heuristic, swaps, timeLimitMillis,
+                onImprovement, stats);
+        solver.lowerBound = heuristic.estimate(solver.heuristicSum);
+
+        int[] greedy = GreedySolver.moves(initialState, targetState, swaps);
+        int depthLimit;
+        if (greedy != null) {
+            depthLimit = greedy.length;
+            solver.improve(greedy);
+        } else {
+            // no solution to start from, the search is only cut by this depth like IdaStarSolver's path
+            int numberOfNodes = initialState.getNumberOfNode();
+            depthLimit = numberOfNodes * numberOfNodes;
+            solver.bestLength = depthLimit + 1;
+        }
+        solver.moves = new int[depthLimit];
+        solver.order = new int[depthLimit][];
+        solver.deltas = new int[depthLimit][];
+
+        if (solver.bestLength > solver.lowerBound) solver.search(0, 0);
+        if (solver.bestMoves == null) return null;
+        // a search that ran out proved that nothing shorter exists
+        if (!solver.stopped) solver.lowerBound = solver.bestLength;
+        return solver.result();
+    }
+
+    /*
+        Explores below the current tree with g swaps done so far, g + h of this tree is already below the best length.
+        lastMove is the child index of the swap that produced this tree (0 at the start, which is never a valid move).
+    */
+    private void search(int g, int lastMove) {
+        if ((++nodesExplored & SearchStats.PROGRESS_MASK) == 0) stats.progress(nodesExplored, nodesGenerated, 0, 0);
+        if (heuristicSum == 0) { // every value is home, and shorter than the best since it got here
+            improve(Arrays.copyOf(moves, g));
+            return;
+        }
+        if ((nodesExplored % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() - deadlineNanos >= 0)
+                || Thread.currentThread().isInterrupted()) {
+            stopped = true; // unwinds the whole search, solve() then returns the best solution so far
+            return;
+        }
+
+        int count = sortSuccessors(g, lastMove);
+        int[] children = order[g];
+        int[] childDeltas = deltas[g];
+        for (int i = 0; i < count; i++) {
+            int delta = childDeltas[i];
+            // sorted by delta, so once one swap cannot beat the best solution neither can the rest
+            if (g + 1 + heuristic.estimate(heuristicSum + delta) >= bestLength) break;
+
+            int child = children[i];
+            nodesGenerated++;
+            swapInPlace(child);
+            heuristicSum += delta;
+            moves[g] = child;
+
+            search(g + 1, child);
+
+            heuristicSum -= delta;
+            swapInPlace(child); // a swap is its own inverse
+            if (stopped) return;
+        }
+    }
+
+    // fills order[g] and deltas[g] with the swaps after lastMove, lowest delta first, and returns how many there are
+    private int sortSuccessors(int g, int lastMove) {
+        int[] children = successors[lastMove];
+        if (order[g] == null || order[g].length < children.length) {
+            order[g] = new int[children.length];
+            deltas[g] = new int[children.length];
+        }
+        int[] sorted = order[g];
+        int[] sortedDeltas = deltas[g];
+
+        // insertion sort, a tree has only a few swaps
+        for (int i = 0; i < children.length; i++) {
+            int child = children[i];
+            int parent = (child - 1) / 2;
+            int delta = heuristic.swapDelta(positions, child, parent, values[child], values[parent]);
+            int j = i;
+            while (j > 0 && sortedDeltas[j - 1] > delta) {
+                sorted[j] = sorted[j - 1];
+                sortedDeltas[j] = sortedDeltas[j - 1];
+                j--;
+            }
+            sorted[j] = child;
+            sortedDeltas[j] = delta;
+        }
+        return children.length;
+    }
+
+    private void improve(int[] solution) {
+        bestMoves = solution;
+        bestLength = solution.length;
+        if (onImprovement != null) onImprovement.accept(result());
+    }
+
+    private SearchResult result() {
+        return SearchResult.fromMoves(initialState, bestMoves, nodesExplored, nodesGenerated, lowerBound);
+    }
+
+    // swaps the child with its parent, the caller updates the half-swap sum
+    private void swapInPlace(int child) {
+        int parent = (child - 1) / 2;
+        int childValue = values[child];
+        int parentValue = values[parent];
+        values[child] = parentValue;
+        values[parent] = childValue;
+        positions[parentValue] = child;
+        positions[childValue] = parent;
+    }
+}
@@ -0,0 +1,65 @@
+package com.demo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    Stops a solve started by AsyncSolver, and can be shared by several solves to stop them together.
+
+    Cancelling interrupts the thread running each solve. Every engine checks the interrupt flag of its thread
+    in its expansion loop (a single read, no lock), so the search stops within one expansion and frees its thread.
+*/
+
+public class CancellationToken {
+
+    private final List<Thread> runners = new ArrayList<>(); // threads currently solving for this token
+    private final List<Runnable> callbacks = new ArrayList<>();
+    private boolean cancelled;
+
+    public void cancel() {
+        List<Runnable> toRun;
+        synchronized (this) {
+            if (cancelled) return;
+            cancelled = true;
+            for (Thread runner : runners) runner.interrupt();
+            toRun = new ArrayList<>(callbacks);
+            callbacks.clear();
+        }
+        for (Runnable callback : toRun) callback.run(); // outside the lock, a callback may use the token again
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    // runs the callback once the token is cancelled, right away if it already is
+    void onCancel(Runnable callback) {
+        synchronized (this) {
+            if (!cancelled) {
+                callbacks.add(callback);
+                return;
+            }
+        }
+        callback.run();
+    }
+
+    // drops a callback that is no longer needed, so a long lived token shared by many solves does not collect them
+    synchronized void removeOnCancel(Runnable callback) {
+        callbacks.remove(callback);
+    }
+
+    /*
+        registers the current thread as solving for this token
+        returns false if the token is already cancelled, the solve should not start then
+    */
+    synchronized boolean enter() {
+        if (cancelled) return false;
+        runners.add(Thread.currentThread());
+        return true;
+    }
+
+    // called in a finally block after enter(), the thread is no longer interrupted on cancel
+    synchronized void exit() {
+        runners.remove(Thread.currentThread());
+    }
+}
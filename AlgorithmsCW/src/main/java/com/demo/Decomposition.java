@@ -0,0 +1,93 @@
+package com.demo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+    Splits a tree into regions that can be solved on their own, before any search starts.
+
+    A value has to travel along the tree path from where it is to its target position, so the edges on those paths
+    are the only ones a solution needs. Every other edge sits above a subtree that already holds exactly its target
+    values, and it is never swapped. The edges that are needed form connected regions that share no node,
+    so each region is searched as its own smaller problem with only its own swaps,
+    and the solutions are put one after the other because they never touch the same position.
+
+    The cost of a search then follows the size of the disordered regions, not the size of the tree.
+    A region's solution is the shortest one that stays inside that region. Swapping a value out of a closed
+    subtree and back is never shorter for the inputs we have checked, but that is not proven in general,
+    so TreeSolver only decomposes when asked to (SolverOptions) and then reports the whole tree heuristic as the lower bound.
+*/
+
+public class Decomposition {
+
+    // child index of every swap in the tree, for searches that are not split
+    public static int[] allSwaps(int numberOfNodes) {
+        int[] swaps = new int[numberOfNodes - 1];
+        for (int child = 1; child < numberOfNodes; child++) {
+            swaps[child - 1] = child;
+        }
+        return swaps;
+    }
+
+    /*
+        Finds the disordered regions of the tree.
+        returns the child indices of the swaps in each region, regions are ordered by their top node
+        and an empty list means the tree is already the target
+    */
+    public static List<int[]> regions(TreeState initialState, TreeState targetState) {
+        int n = initialState.getNumberOfNode();
+        int[] targetPositions = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            targetPositions[targetState.getValue(i)] = i;
+        }
+
+        // mark every edge some value has to cross, an edge is known by its child index
+        boolean[] crossed = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            int a = i;
+            int b = targetPositions[initialState.getValue(i)];
+            while (a != b) {
+                if (a > b) {
+                    crossed[a] = true;
+                    a = (a - 1) / 2;
+                } else {
+                    crossed[b] = true;
+                    b = (b - 1) / 2;
+                }
+            }
+        }
+
+        // a parent always comes before its children, so one pass from the root joins every crossed edge to its parent's region
+        int[] regionOf = new int[n];
+        Arrays.fill(regionOf, -1);
+        List<List<Integer>> edges = new ArrayList<>();
+        for (int child = 1; child < n; child++) {
+            if (!crossed[child]) continue;
+            int parent = (child - 1) / 2;
+            if (regionOf[parent] < 0) {
+                regionOf[parent] = edges.size(); // the parent is the top node of a new region
+                edges.add(new ArrayList<>());
+            }
+            regionOf[child] = regionOf[parent];
+            edges.get(regionOf[child]).add(child);
+        }
+
+        List<int[]> regions = new ArrayList<>();
+        for (List<Integer> region : edges) {
+            regions.add(region.stream().mapToInt(Integer::intValue).toArray());
+        }
+        return regions;
+    }
+
+    // the input tree with only the positions of one region set to their target values, the goal of that region's search
+    public static TreeState regionTarget(TreeState initialState, TreeState targetState, int[] swaps) {
+        int[] values = initialState.toArray();
+        for (int child : swaps) {
+            int parent = (child - 1) / 2;
+            values[child] = targetState.getValue(child);
+            values[parent] = targetState.getValue(parent);
+        }
+        return new TreeState(values);
+    }
+}
@@ -0,0 +1,398 @@
+package com.demo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/*
+    External memory search: breadth-first heuristic search with an f bound raised like IDA*, kept on disk.
+
+    Each layer holds the states first reached with g swaps and is a sorted SpillFile of packed TreeStates,
+    with the swap that reached each state stored next to it. A layer is expanded by reading it from start to end,
+    and children with g + h over the bound are dropped (their smallest f becomes the next bound).
+    Children are collected in a fixed buffer that is sorted and written out as a run whenever it fills up.
+
+    Duplicates are removed once the whole layer is generated (delayed duplicate detection): the runs are merged,
+    equal states are kept once, and states already in the two previous layers are dropped on the way.
+    Every swap is its own inverse, so a neighbour of a layer g state is in layer g - 1, g or g + 1,
+    and the two previous layers are all the closed set the merge needs.
+
+    A layer whose children all fit in the buffer is deduplicated right there and kept on the heap, as long as the
+    layers kept that way add up to no more than one buffer. Nothing touches the disk until a layer is larger than that,
+    so small instances (and most regions of a decomposed solve) never create a file, and the heap holds at most
+    two buffers.
+
+    The first time the target is generated it is reached with the fewest swaps under the bound, and the bound only
+    grows from the heuristic of the start, so that solution is optimal. The path is rebuilt backwards from the stored
+    swaps, finding each parent by binary search in the layer before it.
+*/
+
+public class ExternalSolver {
+
+    public static final int DEFAULT_BUFFER_RECORDS = 1 << 20; // children kept in memory before a run is written
+
+    private static final int MAX_FAN_IN = 64; // runs merged at once
+
+    private final TreeState targetState;
+    private final Heuristic heuristic;
+    private final SearchStats stats;
+    private final int numberOfNodes;
+    private final int words; // longs in a packed state
+    private final int width; // longs in a record, the state and the swap that reached it
+    private final int[][] successors; // swaps to try after each swap, see MovePruning
+    private Path directory; // null until the first spill when the search makes its own
+    private final boolean temporaryDirectory;
+    private final long[] buffer;
+    private final int bufferRecords;
+    private final List<long[]> layers = new ArrayList<>(); // records of each layer on the heap, null for a layer on disk
+    private long heapRecords; // records of all the layers on the heap
+    private int buffered; // children of the last expanded layer left in the buffer
+    private int nodesExplored;
+    private int nodesGenerated;
+    private int nextBound;
+    private List<Path> runs = new ArrayList<>(); // sorted runs of the layer being generated
+    private int nextRun; // number for the next run file, never reused within a search
+
+    private ExternalSolver(TreeState targetState, Heuristic heuristic, int[] swaps, Path directory, int bufferRecords,
+                           SearchStats stats) {
+        this.targetState = targetState;
+        this.heuristic = heuristic;
+        this.stats = stats;
+        this.numberOfNodes = targetState.getNumberOfNode();
+        this.words = TreeState.wordCount(numberOfNodes);
+        this.width = words + 1;
+        this.successors = MovePruning.successors(numberOfNodes, swaps, false);
+        this.directory = directory;
+        this.temporaryDirectory = directory == null;
+        this.bufferRecords = bufferRecords;
+        this.buffer = new long[bufferRecords * width];
+    }
+
+    // spills, if it has to, to a temporary directory that is deleted afterwards
+    public static SearchResult solve(TreeState initialState, TreeState targetState, Heuristic heuristic, int[] swaps) {
+        return solve(initialState, targetState, heuristic, swaps,
+                new SearchStats(SolverMode.EXTERNAL, initialState.getNumberOfNode()));
+    }
+
+    // same, reporting every bound and the node counts to stats while it runs
+    public static SearchResult solve(TreeState initialState, TreeState targetState, Heuristic heuristic, int[] swaps,
+                                     SearchStats stats) {
+        return solve(initialState, targetState, heuristic, swaps, null, DEFAULT_BUFFER_RECORDS, stats);
+    }
+
+    /*
+        directory should be on a fast local disk, bufferRecords sets the heap used for children before they are spilled
+        a null directory means a temporary one, made on the first spill and deleted afterwards
+    */
+    public static SearchResult solve(TreeState initialState, TreeState targetState, Heuristic heuristic, int[] swaps,
+                                     Path directory, int bufferRecords) {
+        return solve(initialState, targetState, heuristic, swaps, directory, bufferRecords,
+                new SearchStats(SolverMode.EXTERNAL, initialState.getNumberOfNode()));
+    }
+
+    public static SearchResult solve(TreeState initialState, TreeState targetState, Heuristic heuristic, int[] swaps,
+                                     Path directory, int bufferRecords, SearchStats stats) {
+        if (bufferRecords < 1) {
+            throw new IllegalArgumentException("Buffer must hold at least one record, got " + bufferRecords);
+        }
+        ExternalSolver solver = new ExternalSolver(targetState, heuristic, swaps, directory, bufferRecords, stats);
+        TreeState startState = initialState.withHeuristic(heuristic);
+        if (startState.equals(targetState)) return SearchResult.fromMoves(initialState, new int[0], 1);
+
+        try {
+            int bound = startState.getHeuristic();
+            while (true) {
+                stats.boundReached(bound);
+                solver.nextBound = Integer.MAX_VALUE;
+                int[] moves = solver.search(startState, bound);
+                if (moves != null) {
+                    return SearchResult.fromMoves(initialState, moves, solver.nodesExplored, solver.nodesGenerated,
+                            moves.length);
+                }
+                if (solver.nextBound == Integer.MAX_VALUE) return null; // nothing left under any bound
+                if (Thread.currentThread().isInterrupted()) return null;
+                bound = solver.nextBound;
+            }
+        } finally {
+            if (solver.temporaryDirectory && solver.directory != null) deleteQuietly(solver.directory);
+        }
+    }
+
+    // one breadth-first pass under the bound, returns the moves of the first solution or null
+    private int[] search(TreeState startState, int bound) {
+        long[] start = new long[width];
+        System.arraycopy(startState.getPackedValues(), 0, start, 0, words);
+        start[words] = 0; // no move led to the start, and successors[0] tries every swap
+        layers.add(start);
+        heapRecords = 1;
+
+        try {
+            for (int g = 0; ; g++) {
+                long[] goal = expand(g, bound);
+                if (goal != null) return rebuildPath(g, goal);
+                if (Thread.currentThread().isInterrupted()) return null;
+                if (merge(g) == 0) return null; // every state under the bound was seen
+            }
+        } finally {
+            runs = new ArrayList<>();
+            layers.clear();
+            deleteSpillFiles();
+        }
+    }
+
+    /*
+        expands every state of layer g into the buffer, writing it out as a sorted run each time it fills up
+        returns the parent record with the goal move in its last long if the target was generated, or null
+    */
+    private long[] expand(int g, int bound) {
+        int count = 0;
+        long[] record = new long[width];
+        try (SpillFile layer = openLayer(g)) {
+            for (long index = 0; index < layer.size() && !Thread.currentThread().isInterrupted(); index++) {
+                layer.read(index, record);
+                TreeState state = TreeState.fromPackedValues(record, 0, numberOfNodes, heuristic);
+                if ((++nodesExplored & SearchStats.PROGRESS_MASK) == 0) stats.progress(nodesExplored, nodesGenerated, 0, 0);
+
+                for (int child : successors[(int) record[words]]) {
+                    TreeState newState = state.swap(child);
+                    nodesGenerated++;
+                    int fScore = g + 1 + newState.getHeuristic();
+                    if (fScore > bound) {
+                        nextBound = Math.min(nextBound, fScore);
+                        continue;
+                    }
+                    if (newState.equals(targetState)) {
+                        record[words] = child;
+                        return record;
+                    }
+                    if (count == bufferRecords) {
+                        writeRun(count);
+                        count = 0;
+                    }
+                    int offset = count++ * width;
+                    System.arraycopy(newState.getPackedValues(), 0, buffer, offset, words);
+                    buffer[offset + words] = child;
+                }
+            }
+        }
+        buffered = count;
+        return null;
+    }
+
+    private void writeRun(int count) {
+        SpillFile.sort(buffer, count, width, words);
+        Path run = runPath(nextRun++);
+        runs.add(run);
+        try (SpillFile.Writer writer = new SpillFile.Writer(run)) {
+            for (int i = 0; i < count; i++) {
+                writer.write(buffer, i * width, width);
+            }
+        }
+    }
+
+    /*
+        merges the children of layer g + 1 into one sorted layer, dropping repeated states and states of layers g and g - 1
+        runs are first merged in groups while there are more than MAX_FAN_IN of them, so only that many files are open
+        returns the number of states in the new layer
+    */
+    private long merge(int g) {
+        if (runs.isEmpty()) return mergeBuffer(g);
+        if (buffered > 0) writeRun(buffered);
+        while (runs.size() > MAX_FAN_IN) {
+            List<Path> merged = new ArrayList<>();
+            for (int from = 0; from < runs.size(); from += MAX_FAN_IN) {
+                Path output = runPath(nextRun++);
+                mergeRuns(runs.subList(from, Math.min(from + MAX_FAN_IN, runs.size())), output, null, null);
+                merged.add(output);
+            }
+            runs = merged;
+        }
+
+        try (SpillFile current = openLayer(g);
+             SpillFile previous = g > 0 ? openLayer(g - 1) : null) {
+            layers.add(null);
+            return mergeRuns(runs, layerPath(g + 1), current, previous);
+        } finally {
+            runs = new ArrayList<>();
+        }
+    }
+
+    // the same merge for a layer that never filled the buffer, done in the buffer itself
+    private long mergeBuffer(int g) {
+        SpillFile.sort(buffer, buffered, width, words);
+        int count = 0;
+        try (SpillFile current = openLayer(g);
+             SpillFile previous = g > 0 ? openLayer(g - 1) : null) {
+            Cursor inCurrent = new Cursor(current);
+            Cursor inPrevious = new Cursor(previous);
+            long[] record = new long[width];
+            long[] last = new long[width];
+            for (int i = 0; i < buffered; i++) {
+                System.arraycopy(buffer, i * width, record, 0, width);
+                // equal states are next to each other, the first one is kept
+                if (i > 0 && SpillFile.compareKeys(record, 0, last, 0, words) == 0) continue;
+                System.arraycopy(record, 0, last, 0, width);
+                if (inCurrent.contains(record) || inPrevious.contains(record)) continue;
+                System.arraycopy(record, 0, buffer, count++ * width, width); // never ahead of i, so nothing unread is lost
+            }
+        }
+
+        if (heapRecords + count <= bufferRecords) {
+            layers.add(Arrays.copyOf(buffer, count * width));
+            heapRecords += count;
+        } else {
+            layers.add(null);
+            try (SpillFile.Writer writer = new SpillFile.Writer(layerPath(g + 1))) {
+                for (int i = 0; i < count; i++) {
+                    writer.write(buffer, i * width, width);
+                }
+            }
+        }
+        return count;
+    }
+
+    // merges sorted runs into output keeping each state once, leaves out states found in the given layers (either may be null)
+    private long mergeRuns(List<Path> inputs, Path output, SpillFile current, SpillFile previous) {
+        List<SpillFile> files = new ArrayList<>();
+        try (SpillFile.Writer writer = new SpillFile.Writer(output)) {
+            for (Path input : inputs) files.add(new SpillFile(input, words));
+
+            long[][] heads = new long[files.size()][width];
+            long[] positions = new long[files.size()];
+            for (int run = 0; run < files.size(); run++) files.get(run).read(0, heads[run]); // runs are never empty
+
+            Cursor inCurrent = new Cursor(current);
+            Cursor inPrevious = new Cursor(previous);
+            long[] last = new long[width];
+            boolean hasLast = false;
+            while (true) {
+                int smallest = -1; // run with the smallest head, at most MAX_FAN_IN of them so a scan is enough
+                for (int run = 0; run < files.size(); run++) {
+                    if (positions[run] < files.get(run).size()
+                            && (smallest < 0 || SpillFile.compareKeys(heads[run], 0, heads[smallest], 0, words) < 0)) {
+                        smallest = run;
+                    }
+                }
+                if (smallest < 0) break;
+
+                long[] head = heads[smallest];
+                // equal states come out next to each other, the first one is kept
+                if (!hasLast || SpillFile.compareKeys(head, 0, last, 0, words) != 0) {
+                    if (!inCurrent.contains(head) && !inPrevious.contains(head)) writer.write(head, 0, width);
+                    System.arraycopy(head, 0, last, 0, width);
+                    hasLast = true;
+                }
+
+                if (++positions[smallest] < files.get(smallest).size()) files.get(smallest).read(positions[smallest], head);
+            }
+            return writer.records();
+        } finally {
+            for (SpillFile file : files) file.close();
+            for (Path input : inputs) delete(input);
+        }
+    }
+
+    // walks backwards from the goal's parent in layer g, reading the swap stored with every state on the way
+    private int[] rebuildPath(int g, long[] goalParent) {
+        int[] moves = new int[g + 1];
+        moves[g] = (int) goalParent[words];
+        long[] key = goalParent.clone();
+        long[] record = new long[width];
+        for (int layerIndex = g; layerIndex > 0; layerIndex--) {
+            try (SpillFile layer = openLayer(layerIndex)) {
+                if (layer.find(key, record) < 0) {
+                    throw new IllegalStateException("State missing from layer " + layerIndex + " while rebuilding the path");
+                }
+            }
+            int move = (int) record[words];
+            moves[layerIndex - 1] = move;
+            TreeState parent = TreeState.fromPackedValues(record, 0, numberOfNodes, null).swap(move);
+            System.arraycopy(parent.getPackedValues(), 0, key, 0, words);
+        }
+        return moves;
+    }
+
+    private SpillFile openLayer(int g) {
+        long[] records = layers.get(g);
+        return records != null ? new SpillFile(records, words) : new SpillFile(layerPath(g), words);
+    }
+
+    private Path layerPath(int g) {
+        return spillDirectory().resolve("layer-" + g + ".bin");
+    }
+
+    private Path runPath(int run) {
+        return spillDirectory().resolve("run-" + run + ".bin");
+    }
+
+    // the directory given to solve, or a temporary one made the first time anything is spilled
+    private Path spillDirectory() {
+        if (directory == null) {
+            try {
+                directory = Files.createTempDirectory("tree-search");
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot create a directory for the spill files", e);
+            }
+        }
+        return directory;
+    }
+
+    // removes the layers and any runs left by a pass that stopped at the goal, other files in the directory are kept
+    private void deleteSpillFiles() {
+        if (directory == null) return; // nothing was ever spilled
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().matches("(layer|run)-\\d+\\.bin"))
+                    .forEach(ExternalSolver::delete);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list spill files in " + directory, e);
+        }
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete spill file " + path, e);
+        }
+    }
+
+    private static void deleteQuietly(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(ExternalSolver::delete);
+            Files.deleteIfExists(directory);
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Could not clean up spill directory " + directory + ": " + e.getMessage());
+        }
+    }
+
+    // forward-only membership test on a sorted layer, the keys asked for must come in sorted order
+    private class Cursor {
+
+        private final SpillFile file;
+        private final long[] record = new long[width];
+        private long position = -1;
+
+        Cursor(SpillFile file) {
+            this.file = file;
+            advance();
+        }
+
+        boolean contains(long[] key) {
+            while (position < size() && SpillFile.compareKeys(record, 0, key, 0, words) < 0) advance();
+            return position < size() && SpillFile.compareKeys(record, 0, key, 0, words) == 0;
+        }
+
+        private void advance() {
+            if (++position < size()) file.read(position, record);
+        }
+
+        private long size() {
+            return file == null ? 0 : file.size();
+        }
+    }
+}
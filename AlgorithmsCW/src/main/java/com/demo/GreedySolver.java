@@ -0,0 +1,97 @@
+package com.demo;
+
+import java.util.Arrays;
+
+/*
+    Builds a solution without searching, by moving one value at a time along its tree path to its target position.
+
+    Positions are filled from the last index to the root. The value that belongs at position t is somewhere at an
+    index below t (every later position already holds its own value), so its path goes up from there to the common
+    ancestor and down to t through indices below t only, and never moves a value that is already home.
+    Each value costs at most two tree depths of swaps, so the whole solution is found in O(n log n).
+
+    The solution is far from optimal, but it is a valid upper bound from the start, which BranchAndBoundSolver
+    uses to prune before its own search has found anything.
+*/
+
+public class GreedySolver {
+
+    /*
+        child index of every swap of the greedy solution, using only the given swaps
+        returns null if a path needs a swap outside them, which does not happen for the regions of Decomposition
+    */
+    public static int[] moves(TreeState initialState, TreeState targetState, int[] swaps) {
+        int n = initialState.getNumberOfNode();
+        int[] values = initialState.toArray();
+        int[] positions = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            positions[values[i]] = i;
+        }
+        boolean[] allowed = new boolean[n]; // by child index
+        for (int child : swaps) {
+            allowed[child] = true;
+        }
+
+        int[] moves = new int[16];
+        int count = 0;
+        int[] downPath = new int[32]; // nodes below the common ancestor on the way to the target, deepest first
+        int maxPathSwaps = 2 * downPath.length; // a path is never longer than two depths of a 255 node tree
+        for (int target = n - 1; target > 0; target--) {
+            int position = positions[targetState.getValue(target)];
+            if (position == target) continue;
+
+            int ancestor = commonAncestor(position, target);
+            int downCount = 0;
+            for (int node = target; node != ancestor; node = (node - 1) / 2) {
+                downPath[downCount++] = node;
+            }
+            if (moves.length - count < maxPathSwaps) moves = Arrays.copyOf(moves, moves.length * 2 + maxPathSwaps);
+
+            // up to the common ancestor, each swap moves the value to its parent
+            while (position != ancestor) {
+                if (!allowed[position]) return null;
+                swap(values, positions, position);
+                count = append(moves, count, position);
+                position = (position - 1) / 2;
+            }
+            // then down to the target, each swap moves it to the next child on the path
+            for (int i = downCount - 1; i >= 0; i--) {
+                int child = downPath[i];
+                if (!allowed[child]) return null;
+                swap(values, positions, child);
+                count = append(moves, count, child);
+            }
+        }
+        // the root is the only position left, so it already holds its value
+        return Arrays.copyOf(moves, count);
+    }
+
+    // adds a swap to the solution, or drops the last one if it is the same swap (the two would undo each other)
+    private static int append(int[] moves, int count, int child) {
+        if (count > 0 && moves[count - 1] == child) return count - 1;
+        moves[count] = child;
+        return count + 1;
+    }
+
+    // nearest common ancestor of two positions, a parent always has a smaller index than its children
+    private static int commonAncestor(int a, int b) {
+        while (a != b) {
+            if (a > b) {
+                a = (a - 1) / 2;
+            } else {
+                b = (b - 1) / 2;
+            }
+        }
+        return a;
+    }
+
+    private static void swap(int[] values, int[] positions, int child) {
+        int parent = (child - 1) / 2;
+        int childValue = values[child];
+        int parentValue = values[parent];
+        values[child] = parentValue;
+        values[parent] = childValue;
+        positions[parentValue] = child;
+        positions[childValue] = parent;
+    }
+}
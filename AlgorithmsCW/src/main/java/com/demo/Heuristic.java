@@ -0,0 +1,218 @@
+package com.demo;
+
+import java.util.Arrays;
+
+/*
+    Heuristic for one target tree, counted in half swaps.
+
+    Every swap moves exactly two values by one edge each, so the sum of the tree distances between each value's
+    position and its target position, divided by two, never overestimates the swaps left (admissible).
+    Values that belong to a node and its two children are grouped and priced with a PatternDatabase instead,
+    which also counts the extra moves needed when the three values get in each other's way.
+    Groups are disjoint and each half swap is charged to the one value it moves, so the sum stays admissible.
+
+    The target tables are built once here, so a TreeState can update its estimate after a swap
+    by looking at only the two positions that changed.
+*/
+
+public class Heuristic {
+
+    private final int numberOfNodes;
+    private final int[] targetPositions; // position of every value in the target (index 0 unused)
+    private final int[] valueDistance; // tree distance from every position to the target position of every value
+    private final int[] valueGroup; // group of every value, -1 if it is priced by tree distance only
+    private final int[][] groupValues; // the three values of each group: node, left child, right child
+    private final int[][] groupPositionMap; // maps real positions to the canonical group the table was built for
+    private final PatternDatabase[] groupTable;
+    private StateTable exactDistances; // known exact distances to this target from a SolutionCache, or null
+
+    public Heuristic(TreeState targetState) {
+        this(targetState, true);
+    }
+
+    public Heuristic(TreeState targetState, boolean usePatternDatabases) {
+        numberOfNodes = targetState.getNumberOfNode();
+        int n = numberOfNodes;
+
+        targetPositions = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            targetPositions[targetState.getValue(i)] = i;
+        }
+
+        valueDistance = new int[(n + 1) * n];
+        for (int value = 1; value <= n; value++) {
+            for (int position = 0; position < n; position++) {
+                valueDistance[value * n + position] = treeDistance(position, targetPositions[value]);
+            }
+        }
+
+        valueGroup = new int[n + 1];
+        Arrays.fill(valueGroup, -1);
+
+        int[] depths = usePatternDatabases ? PatternDatabase.groupRootDepths(n) : new int[0];
+        int groupCount = 0;
+        for (int depth : depths) groupCount += 1 << depth;
+
+        groupValues = new int[groupCount][];
+        groupPositionMap = new int[groupCount][];
+        groupTable = new PatternDatabase[groupCount];
+
+        int group = 0;
+        for (int depth : depths) {
+            PatternDatabase table = PatternDatabase.get(n, depth);
+            for (int path = 0; path < (1 << depth); path++) {
+                int root = (1 << depth) - 1 + path;
+                groupValues[group] = new int[]{
+                        targetState.getValue(root),
+                        targetState.getValue(2 * root + 1),
+                        targetState.getValue(2 * root + 2)
+                };
+                for (int value : groupValues[group]) valueGroup[value] = group;
+                groupPositionMap[group] = mirrorMap(n, depth, path);
+                groupTable[group] = table;
+                group++;
+            }
+        }
+    }
+
+    public int getNumberOfNode() {
+        return numberOfNodes;
+    }
+
+    // number of edges between two positions, found by walking the deeper one up until they meet
+    public static int treeDistance(int a, int b) {
+        int distance = 0;
+        while (a != b) {
+            if (a > b) a = (a - 1) / 2;
+            else b = (b - 1) / 2;
+            distance++;
+        }
+        return distance;
+    }
+
+    /*
+        Mirrors subtrees so the node at the given depth and path lands on the leftmost node of that level.
+        Above the group root the path bits are flipped by a prefix of the root's path, below it by the path shifted down.
+        Left and right children of the group root stay left and right.
+    */
+    private static int[] mirrorMap(int n, int rootDepth, int rootPath) {
+        int[] map = new int[n];
+        for (int position = 0; position < n; position++) {
+            int depth = PatternDatabase.depthOf(position);
+            int path = position - ((1 << depth) - 1);
+            int mask = depth <= rootDepth ? rootPath >>> (rootDepth - depth) : rootPath << (depth - rootDepth);
+            map[position] = (1 << depth) - 1 + (path ^ mask);
+        }
+        return map;
+    }
+
+    // half-swap cost of one group with its three values at these positions
+    private int groupCost(int group, int p0, int p1, int p2) {
+        int[] map = groupPositionMap[group];
+        return groupTable[group].get(map[p0], map[p1], map[p2]);
+    }
+
+    // Full sum in half swaps, only used when a state is created from scratch
+    int evaluate(int[] positions) {
+        int total = 0;
+        for (int value = 1; value <= numberOfNodes; value++) {
+            if (valueGroup[value] < 0) total += valueDistance[value * numberOfNodes + positions[value]];
+        }
+        for (int group = 0; group < groupValues.length; group++) {
+            int[] values = groupValues[group];
+            total += groupCost(group, positions[values[0]], positions[values[1]], positions[values[2]]);
+        }
+        return total;
+    }
+
+    /*
+        Change of the half-swap sum when the values at childIndex and parentIndex swap.
+        positions are the packed positions before the swap. Only the two moved values and at most two groups are looked at.
+    */
+    int swapDelta(long[] positions, int childIndex, int parentIndex, int childValue, int parentValue) {
+        int childGroup = valueGroup[childValue];
+        int parentGroup = valueGroup[parentValue];
+        int delta = 0;
+
+        if (childGroup >= 0) {
+            int[] values = groupValues[childGroup];
+            delta += groupDelta(childGroup, TreeState.readByte(positions, values[0]), TreeState.readByte(positions, values[1]),
+                    TreeState.readByte(positions, values[2]), childIndex, parentIndex, childValue, parentValue);
+        }
+        if (parentGroup >= 0 && parentGroup != childGroup) {
+            int[] values = groupValues[parentGroup];
+            delta += groupDelta(parentGroup, TreeState.readByte(positions, values[0]), TreeState.readByte(positions, values[1]),
+                    TreeState.readByte(positions, values[2]), childIndex, parentIndex, childValue, parentValue);
+        }
+        return delta + ungroupedDelta(childIndex, parentIndex, childValue, parentValue);
+    }
+
+    // same as above for the plain position array the IDA* engine swaps in place
+    int swapDelta(int[] positions, int childIndex, int parentIndex, int childValue, int parentValue) {
+        int childGroup = valueGroup[childValue];
+        int parentGroup = valueGroup[parentValue];
+        int delta = 0;
+
+        if (childGroup >= 0) {
+            int[] values = groupValues[childGroup];
+            delta += groupDelta(childGroup, positions[values[0]], positions[values[1]], positions[values[2]],
+                    childIndex, parentIndex, childValue, parentValue);
+        }
+        if (parentGroup >= 0 && parentGroup != childGroup) {
+            int[] values = groupValues[parentGroup];
+            delta += groupDelta(parentGroup, positions[values[0]], positions[values[1]], positions[values[2]],
+                    childIndex, parentIndex, childValue, parentValue);
+        }
+        return delta + ungroupedDelta(childIndex, parentIndex, childValue, parentValue);
+    }
+
+    private int ungroupedDelta(int childIndex, int parentIndex, int childValue, int parentValue) {
+        int n = numberOfNodes;
+        int delta = 0;
+        if (valueGroup[childValue] < 0) {
+            delta += valueDistance[childValue * n + parentIndex] - valueDistance[childValue * n + childIndex];
+        }
+        if (valueGroup[parentValue] < 0) {
+            delta += valueDistance[parentValue * n + childIndex] - valueDistance[parentValue * n + parentIndex];
+        }
+        return delta;
+    }
+
+    private int groupDelta(int group, int p0, int p1, int p2, int childIndex, int parentIndex, int childValue, int parentValue) {
+        int[] values = groupValues[group];
+        int before = groupCost(group, p0, p1, p2);
+        int after = groupCost(group,
+                movedPosition(values[0], p0, childIndex, parentIndex, childValue, parentValue),
+                movedPosition(values[1], p1, childIndex, parentIndex, childValue, parentValue),
+                movedPosition(values[2], p2, childIndex, parentIndex, childValue, parentValue));
+        return after - before;
+    }
+
+    private static int movedPosition(int value, int position, int childIndex, int parentIndex, int childValue, int parentValue) {
+        if (value == childValue) return parentIndex;
+        if (value == parentValue) return childIndex;
+        return position;
+    }
+
+    // swaps left, rounded up from the half-swap sum
+    int estimate(int halfSwaps) {
+        return (halfSwaps + 1) / 2;
+    }
+
+    // same, raised to the exact distance when the state has one
+    int estimate(TreeState state, int halfSwaps) {
+        int estimate = (halfSwaps + 1) / 2;
+        if (exactDistances == null) return estimate;
+        int exact = exactDistances.getGScore(state);
+        return exact == Integer.MAX_VALUE ? estimate : Math.max(estimate, exact);
+    }
+
+    /*
+        Exact distances for some states, from earlier searches on the same target and swaps.
+        The estimate stays admissible but is no longer consistent, so it is only given to engines that open a state
+        again when a shorter path to it turns up, or that need no consistency at all.
+    */
+    void useExactDistances(StateTable distances) {
+        this.exactDistances = distances;
+    }
+}
@@ -0,0 +1,114 @@
+package com.demo;
+
+/*
+    IDA* engine: depth-first search bounded by f = g + h, where the bound is raised to the smallest f that went over it.
+    There is only one mutable copy of the tree: every swap is done in place and undone on the way back,
+    so memory stays at O(depth) no matter how many nodes are explored.
+    Without a duplicate table, the same tree is reached again through undone and reordered swaps,
+    so the swaps to try after each swap come from MovePruning with canonical ordering.
+*/
+
+public class IdaStarSolver {
+
+    private static final int NOT_FOUND = -1;
+
+    private final Heuristic heuristic;
+    private final SearchStats stats;
+    private final int numberOfNodes;
+    private final int[][] successors; // swaps to try after each swap, see MovePruning
+    private final int[] values; // value at every position, swapped in place
+    private final int[] positions; // position of every value, kept in step with values
+    private final int[] moves; // child index of every swap on the current path
+    private int heuristicSum; // half-swap sum of the current tree
+    private int nodesExplored;
+    private int nodesGenerated;
+    private int nextBound;
+
+    private IdaStarSolver(TreeState initialState, Heuristic heuristic, int[] swaps, SearchStats stats) {
+        this.heuristic = heuristic;
+        this.stats = stats;
+        this.numberOfNodes = initialState.getNumberOfNode();
+        this.successors = MovePruning.successors(numberOfNodes, swaps, true);
+        this.values = initialState.toArray();
+        this.positions = new int[numberOfNodes + 1];
+        for (int i = 0; i < numberOfNodes; i++) {
+            positions[values[i]] = i;
+        }
+        this.heuristicSum = heuristic.evaluate(positions);
+        // a path is never longer than the largest bound, which is far below this for the inputs we handle
+        this.moves = new int[numberOfNodes * numberOfNodes];
+    }
+
+    public static SearchResult solve(TreeState initialState, Heuristic heuristic) {
+        return solve(initialState, heuristic, Decomposition.allSwaps(initialState.getNumberOfNode()));
+    }
+
+    public static SearchResult solve(TreeState initialState, Heuristic heuristic, int[] swaps) {
+        return solve(initialState, heuristic, swaps, new SearchStats(SolverMode.IDA_STAR, initialState.getNumberOfNode()));
+    }
+
+    // same, reporting every bound and the node counts to stats while it runs
+    public static SearchResult solve(TreeState initialState, Heuristic heuristic, int[] swaps, SearchStats stats) {
+        IdaStarSolver solver = new IdaStarSolver(initialState, heuristic, swaps, stats);
+
+        int bound = heuristic.estimate(solver.heuristicSum);
+        while (true) {
+            stats.boundReached(bound);
+            solver.nextBound = Integer.MAX_VALUE;
+            int length = solver.search(0, bound, 0);
+            if (length != NOT_FOUND) {
+                int[] solution = new int[length];
+                System.arraycopy(solver.moves, 0, solution, 0, length);
+                return SearchResult.fromMoves(initialState, solution, solver.nodesExplored, solver.nodesGenerated, length);
+            }
+            if (solver.nextBound == Integer.MAX_VALUE) return null; // nothing left to explore
+            if (Thread.currentThread().isInterrupted()) return null;
+            bound = solver.nextBound;
+        }
+    }
+
+    /*
+        Explores below the current tree with g swaps done so far.
+        Returns the solution length if the target was reached, or NOT_FOUND if not.
+        lastMove is the child index of the swap that produced this tree (0 at the start, which is never a valid move).
+    */
+    private int search(int g, int bound, int lastMove) {
+        int h = heuristic.estimate(heuristicSum);
+        int f = g + h;
+        if (f > bound) {
+            if (f < nextBound) nextBound = f;
+            return NOT_FOUND;
+        }
+        if ((++nodesExplored & SearchStats.PROGRESS_MASK) == 0) stats.progress(nodesExplored, nodesGenerated, 0, 0);
+        if (heuristicSum == 0) return g; // every value is home
+        if (Thread.currentThread().isInterrupted()) return NOT_FOUND; // unwinds the whole search, solve() then stops
+
+        for (int child : successors[lastMove]) {
+            nodesGenerated++;
+            int delta = swapInPlace(child);
+            heuristicSum += delta;
+            moves[g] = child;
+
+            int result = search(g + 1, bound, child);
+
+            heuristicSum -= delta;
+            swapInPlace(child); // a swap is its own inverse
+            if (result != NOT_FOUND) return result;
+        }
+        return NOT_FOUND;
+    }
+
+    // swaps the child with its parent and returns the change of the half-swap sum
+    private int swapInPlace(int child) {
+        int parent = (child - 1) / 2;
+        int childValue = values[child];
+        int parentValue = values[parent];
+        int delta = heuristic.swapDelta(positions, child, parent, childValue, parentValue);
+
+        values[child] = parentValue;
+        values[parent] = childValue;
+        positions[parentValue] = child;
+        positions[childValue] = parent;
+        return delta;
+    }
+}
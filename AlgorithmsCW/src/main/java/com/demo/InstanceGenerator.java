@@ -0,0 +1,102 @@
+package com.demo;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/*
+    Generates instances like input/bounded_N_k.txt for any complete tree size and any number of swaps.
+
+    An instance is the target BST after k random parent-child swaps (TreeState.swap), never undoing the swap just made.
+    Doing the k swaps backwards sorts it again, so k is a known upper bound on its solution length.
+    Every instance has its own seed, derived from the run seed, the size, k and its index, so any single instance
+    can be made again from the seed recorded next to it, and adding sizes to a run does not change the other instances.
+
+    TargetBST only gives a valid target for complete trees, so the size must be 2^d - 1 (up to TreeState.MAX_VALUE).
+*/
+
+public class InstanceGenerator {
+
+    public static final long DEFAULT_SEED = 1;
+    public static final String MANIFEST = "instances.csv";
+
+    // values of the tree of size n after k random swaps from its target, the same seed always gives the same tree
+    public static int[] generate(int n, int k, long seed) {
+        checkSize(n);
+        if (k < 0) {
+            throw new IllegalArgumentException("Swap count must not be negative, got " + k);
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        TreeState state = new TreeState(TargetBST.targetValues(n));
+        int lastChild = 0;
+        for (int i = 0; i < k && n > 1; i++) {
+            int child;
+            do {
+                child = 1 + random.nextInt(n - 1);
+            } while (child == lastChild && n > 2); // a tree of 2 nodes has only one swap
+            state = state.swap(child);
+            lastChild = child;
+        }
+        return state.toArray();
+    }
+
+    // seed of instance index of size n and k swaps in a run with the given seed
+    public static long instanceSeed(long seed, int n, int k, int index) {
+        long hash = seed;
+        for (long part : new long[]{n, k, index}) {
+            hash = (hash ^ part) * 0x9E3779B97F4A7C15L;
+            hash ^= hash >>> 29;
+        }
+        return hash;
+    }
+
+    /*
+        writes count instances for every size and swap count to directory, as scrambled_N_k_i.txt in the input format,
+        with a manifest listing the file, size, swaps, seed and upper bound of each
+        returns the number of files written
+    */
+    public static int write(Path directory, int[] sizes, int[] swapCounts, int count, long seed) throws IOException {
+        if (count < 1) {
+            throw new IllegalArgumentException("Instance count must be at least 1, got " + count);
+        }
+        for (int n : sizes) checkSize(n);
+        Files.createDirectories(directory);
+
+        int written = 0;
+        try (BufferedWriter manifest = Files.newBufferedWriter(directory.resolve(MANIFEST))) {
+            manifest.write("file,nodes,swaps,seed,upper_bound");
+            manifest.newLine();
+            for (int n : sizes) {
+                for (int k : swapCounts) {
+                    for (int i = 0; i < count; i++) {
+                        long instanceSeed = instanceSeed(seed, n, k, i);
+                        String name = "scrambled_" + n + "_" + k + "_" + i + ".txt";
+                        Files.writeString(directory.resolve(name), toLine(generate(n, k, instanceSeed)) + System.lineSeparator());
+                        manifest.write(name + "," + n + "," + k + "," + instanceSeed + "," + k);
+                        manifest.newLine();
+                        written++;
+                    }
+                }
+            }
+        }
+        return written;
+    }
+
+    // the values separated by spaces, as InputParser reads them
+    static String toLine(int[] values) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) line.append(' ');
+            line.append(values[i]);
+        }
+        return line.toString();
+    }
+
+    private static void checkSize(int n) {
+        if (n < 1 || n > TreeState.MAX_VALUE || (n & (n + 1)) != 0) {
+            throw new IllegalArgumentException("Tree size must be 2^d - 1 and at most " + TreeState.MAX_VALUE + ", got " + n);
+        }
+    }
+}
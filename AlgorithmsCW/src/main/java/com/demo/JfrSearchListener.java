@@ -0,0 +1,151 @@
+package com.demo;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/*
+    Publishes search metrics as JFR events, registered with TreeSolver by default.
+    Record them with -XX:StartFlightRecording (or jcmd JFR.start) and look under "Tree Search" in JDK Mission Control.
+    When no recording has an event enabled, its call returns on the isEnabled() check before anything is allocated.
+*/
+
+public class JfrSearchListener implements SearchListener {
+
+    private static final EventType BOUND_RAISED = EventType.getEventType(BoundRaised.class);
+    private static final EventType PROGRESS = EventType.getEventType(Progress.class);
+    private static final EventType FINISHED = EventType.getEventType(Finished.class);
+
+    @Override
+    public void boundRaised(SearchStats stats, int bound) {
+        if (!BOUND_RAISED.isEnabled()) return;
+        BoundRaised event = new BoundRaised();
+        if (!event.shouldCommit()) return; // enabled, but under the recording's threshold
+        event.mode = stats.getMode().name();
+        event.bound = bound;
+        event.nodesExpanded = stats.getNodesExpanded();
+        event.elapsed = stats.getElapsedNanos();
+        event.commit();
+    }
+
+    @Override
+    public void progress(SearchStats stats) {
+        if (!PROGRESS.isEnabled()) return;
+        Progress event = new Progress();
+        if (!event.shouldCommit()) return; // enabled, but under the recording's threshold
+        event.mode = stats.getMode().name();
+        event.nodesExpanded = stats.getNodesExpanded();
+        event.nodesGenerated = stats.getNodesGenerated();
+        event.duplicates = stats.getDuplicates();
+        event.openPeak = stats.getOpenPeak();
+        event.closedSetSize = stats.getClosedSetSize();
+        event.expansionsPerSecond = stats.getExpansionsPerSecond();
+        event.bound = stats.getBound();
+        event.commit();
+    }
+
+    @Override
+    public void searchFinished(SearchStats stats, SearchResult result) {
+        if (!FINISHED.isEnabled()) return;
+        Finished event = new Finished();
+        if (!event.shouldCommit()) return; // enabled, but under the recording's threshold
+        event.mode = stats.getMode().name();
+        event.numberOfNodes = stats.getNumberOfNodes();
+        event.solved = result != null;
+        event.swaps = result == null ? -1 : result.getNumberOfSwaps();
+        event.nodesExpanded = stats.getNodesExpanded();
+        event.nodesGenerated = stats.getNodesGenerated();
+        event.duplicates = stats.getDuplicates();
+        event.openPeak = stats.getOpenPeak();
+        event.closedSetSize = stats.getClosedSetSize();
+        event.expansionsPerSecond = stats.getExpansionsPerSecond();
+        event.elapsed = stats.getElapsedNanos();
+        int[] errors = stats.getHeuristicErrors();
+        long states = 0;
+        long total = 0;
+        for (int i = 0; i < errors.length; i++) {
+            states += errors[i];
+            total += (long) i * errors[i];
+        }
+        event.meanHeuristicError = states == 0 ? 0 : (double) total / states;
+        event.commit();
+    }
+
+    @Name("com.demo.SearchBoundRaised")
+    @Label("Search Bound Raised")
+    @Category("Tree Search")
+    @StackTrace(false)
+    static class BoundRaised extends Event {
+        @Label("Solver Mode")
+        String mode;
+        @Label("f Bound")
+        int bound;
+        @Label("Nodes Expanded")
+        long nodesExpanded;
+        @Label("Elapsed")
+        @Timespan
+        long elapsed;
+    }
+
+    @Name("com.demo.SearchProgress")
+    @Label("Search Progress")
+    @Category("Tree Search")
+    @StackTrace(false)
+    static class Progress extends Event {
+        @Label("Solver Mode")
+        String mode;
+        @Label("Nodes Expanded")
+        long nodesExpanded;
+        @Label("Nodes Generated")
+        long nodesGenerated;
+        @Label("Duplicates")
+        long duplicates;
+        @Label("Open Set Peak")
+        int openPeak;
+        @Label("Closed Set Size")
+        int closedSetSize;
+        @Label("Expansions per Second")
+        double expansionsPerSecond;
+        @Label("f Bound")
+        int bound;
+    }
+
+    @Name("com.demo.SearchFinished")
+    @Label("Search Finished")
+    @Category("Tree Search")
+    @Description("One search of a tree or of one of its regions")
+    @StackTrace(false)
+    static class Finished extends Event {
+        @Label("Solver Mode")
+        String mode;
+        @Label("Tree Size")
+        int numberOfNodes;
+        @Label("Solved")
+        boolean solved;
+        @Label("Swaps")
+        int swaps;
+        @Label("Nodes Expanded")
+        long nodesExpanded;
+        @Label("Nodes Generated")
+        long nodesGenerated;
+        @Label("Duplicates")
+        long duplicates;
+        @Label("Open Set Peak")
+        int openPeak;
+        @Label("Closed Set Size")
+        int closedSetSize;
+        @Label("Expansions per Second")
+        double expansionsPerSecond;
+        @Label("Elapsed")
+        @Timespan
+        long elapsed;
+        @Label("Mean Heuristic Error")
+        @Description("Mean of real distance minus heuristic over the states of the solution path, in swaps")
+        double meanHeuristicError;
+    }
+}
@@ -3,23 +3,95 @@ package com.demo;
 import com.demo.util.InputParser;
 
 import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public class Main {
 
     public static String filePath = "input/bounded_15_0.txt";
     public static String testFilePath = "input/test";
 
+    /*
+        optional arguments: input file path and solver mode (a_star, ida_star, bidirectional, parallel, anytime,
+        memory_bounded, external or branch_and_bound)
+        batch mode: batch <directory or glob> [solver mode] [timeout in seconds] [output .jsonl or .csv file]
+        stream mode: stream <file with one tree per line, or - for stdin> [solver mode] [timeout in seconds] [output file]
+        server mode: serve [port, or - for stdin and stdout (the default)] [solver mode], see SolverDaemon
+        generate mode: generate <output directory> [sizes, e.g. 31,63,255] [swap counts, e.g. 8,16] [instances of each] [seed]
+        scaling mode: scale <output .csv> [baseline .csv, or - for none] [sizes] [swap counts] [solver modes, or all]
+            [timeout in seconds] [instances of each] [seed], see ScalingHarness
+        solutions are cached in cache/solutions.bin, -Dsolution.cache=<file> picks another file and off turns it off
+        every mode searches the whole tree, -Dsolver.decompose=true splits it into regions first (see SolverOptions)
+        -Dsolver.memory.mb=<megabytes> sets the memory_bounded node budget (a quarter of the heap by default)
+        -Dsolver.time.limit.ms=<milliseconds> sets how long anytime and branch_and_bound improve their solution (10 s by default)
+    */
     public static void main(String[] args) {
 
-        start(testFilePath);// start the application
+        SolutionCache cache = openCache();
+        SolverOptions options = SolverOptions.fromSystemProperties();
+        try {
+            if (args.length > 0 && (args[0].equals("batch") || args[0].equals("stream"))) {
+                TreeSolver.useCache(cache);
+                startBatch(args, options);
+                return;
+            }
+            if (args.length > 0 && args[0].equals("serve")) {
+                startServer(args, cache, options);
+                return;
+            }
+            if (args.length > 0 && args[0].equals("generate")) {
+                startGenerator(args);
+                return;
+            }
+            if (args.length > 0 && args[0].equals("scale")) {
+                startScaling(args, options); // without the cache, so every run measures the same searches
+                return;
+            }
+
+            String path = args.length > 0 ? args[0] : testFilePath;
+            SolverMode mode = args.length > 1 ? parseMode(args[1]) : SolverMode.A_STAR;
+            if (mode == null) return;
 
+            TreeSolver.useCache(cache);
+            start(path, mode, options);// start the application
+        } finally {
+            saveCache(cache);
+        }
+    }
+
+    private static SolutionCache openCache() {
+        String file = System.getProperty("solution.cache", SolutionCache.DEFAULT_FILE);
+        if (file.equals("off")) return null;
+        return SolutionCache.open(Paths.get(file), SolutionCache.DEFAULT_MAX_BYTES);
+    }
+
+    private static void saveCache(SolutionCache cache) {
+        if (cache == null) return;
+        try {
+            cache.save();
+        } catch (IOException e) {
+            System.err.println("Could not save the solution cache: " + e.getMessage());
+        }
     }
 
     public static void start (String filePath){
+        start(filePath, SolverMode.A_STAR);
+    }
+
+    public static void start (String filePath, SolverMode mode){
+        start(filePath, mode, SolverOptions.DEFAULT);
+    }
+
+    public static void start (String filePath, SolverMode mode, SolverOptions options){
 
         System.out.println("\n=== TREE SORTING ALGORITHM ===");
         System.out.println("Input file: " + filePath);
+        System.out.println("Solver mode: " + mode);
+        System.out.println("Solver options: " + options);
         System.out.println();
 
         try {
@@ -27,6 +99,7 @@ public class Main {
             System.out.println("Step 01: Parsing Input...\n ");
 
             int[] treeData = InputParser.parser(filePath);
+            System.out.println(" Validation successful ");
 
             System.out.println(" * parsed tree data: " + Arrays.toString(treeData));
             System.out.println(" * Number of nodes: " + treeData.length);
@@ -53,7 +126,7 @@ public class Main {
             // Step 4: if not sorted Solve the problem
             System.out.println("Step 4: Finding Optimal Solution...\n");
             long startTime = System.currentTimeMillis();
-            SearchResult result = TreeSolver.solve(initialState);
+            SearchResult result = TreeSolver.solve(initialState, mode, options);
             long endTime = System.currentTimeMillis();
 
             // Step 5: Display results
@@ -64,7 +137,7 @@ public class Main {
 
                 // Step 6: Verify solution
                 System.out.println("Verification");
-                if (verifySolution(initialState, targetState, result)) {
+                if (verifySolution(initialState, result)) {
                     System.out.println("* Solution verified successfully!");
                 } else {
                     System.out.println("* Solution verification failed!");
@@ -73,8 +146,12 @@ public class Main {
                 // Display performance metrics
                 System.out.println("\n--- Performance  ---");
                 System.out.printf("Tree size: %d nodes\n", treeData.length);
-                System.out.printf("Time complexity: O(N! × N) where N = %d\n", treeData.length);
                 System.out.printf("Execution time: %d ms\n", (endTime - startTime));
+                if (result.getStats() != null) {
+                    System.out.print(result.getStats());
+                } else {
+                    System.out.println("Answered from the solution cache, no search was run");
+                }
             } else {
                 System.out.println("✗ No solution found!");
                 System.out.println("This should not happen for valid inputs.");
@@ -93,56 +170,164 @@ public class Main {
         System.out.println("\n=== PROGRAM FINISHED ===");
     }
 
-    /*
-      Verifies that the solution actually transforms initial state to target state
-     */
-    private static boolean verifySolution(TreeState initialState, TreeState targetState, SearchResult result) {
+    // batch and stream mode, args[0] says which
+    public static void startBatch(String[] args, SolverOptions options) {
+        boolean stream = args[0].equals("stream");
+        if (args.length < 2) {
+            System.err.println(stream
+                    ? "Usage: stream <file with one tree per line, or - for stdin> [solver mode] [timeout in seconds] [output file]"
+                    : "Usage: batch <directory or glob> [solver mode] [timeout in seconds] [output file]");
+            return;
+        }
+        SolverMode mode = args.length > 2 ? parseMode(args[2]) : SolverMode.A_STAR;
+        if (mode == null) return;
+        long timeoutSeconds = args.length > 3 ? Long.parseLong(args[3]) : BatchSolver.DEFAULT_TIMEOUT_SECONDS;
+        Path output = Paths.get(args.length > 4 ? args[4] : "batch-results.jsonl");
 
-        TreeState currentState = initialState;
-        System.out.println("Applying swap sequence step by step:");
-        System.out.println("Step 0: " + currentState);
+        System.out.println("\n=== TREE SORTING BATCH ===");
+        System.out.println("Input: " + args[1] + ", solver mode: " + mode + ", timeout: " + timeoutSeconds + " s");
+        try {
+            long startTime = System.currentTimeMillis();
+            int solved = stream
+                    ? BatchSolver.runStream(args[1], mode, options, timeoutSeconds, output)
+                    : BatchSolver.run(args[1], mode, options, timeoutSeconds, output);
+            long endTime = System.currentTimeMillis();
+            System.out.println("Solved " + solved + " instances in " + (endTime - startTime) + " ms, results in " + output);
+        } catch (IOException e) {
+            System.err.println("File I/O Error: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Batch Error: " + e.getMessage());
+        }
+    }
 
-        // Apply each swap in the solution
-        for (int i = 0; i < result.getSwapSequence().size(); i++) {
-            String swapDescription = result.getSwapSequence().get(i);
+    public static void startServer(String[] args, SolutionCache cache, SolverOptions options) {
+        String where = args.length > 1 ? args[1] : "-";
+        SolverMode mode = args.length > 2 ? parseMode(args[2]) : SolverMode.A_STAR;
+        if (mode == null) return;
 
-            // Extract node index from the swap description
-            int nodeIndex = extractNodeIndex(swapDescription);
+        // stdout carries the replies in stdin mode, anything else printed goes to stderr
+        PrintStream replies = System.out;
+        System.setOut(System.err);
+        System.err.println("=== TREE SORTING SERVER === solver mode: " + mode);
 
-            if (nodeIndex != -1) {
-                TreeState newState = currentState.swap(nodeIndex);
-                if (newState != null) {
-                    currentState = newState;
-                    System.out.println("Step " + (i + 1) + ": " + currentState + " ← " + swapDescription);
-                } else {
-                    System.out.println("✗ Invalid swap at step " + (i + 1));
-                    return false;
-                }
+        // a server is usually stopped with a signal, the cache is saved on the way out
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> saveCache(cache)));
+        try (SolverDaemon daemon = new SolverDaemon(mode, options)) {
+            long startTime = System.currentTimeMillis();
+            daemon.warmUp(); // before the cache is used, so the generated trees are not stored
+            System.err.println("Warm-up done in " + (System.currentTimeMillis() - startTime) + " ms");
+            TreeSolver.useCache(cache);
+
+            if (where.equals("-")) {
+                daemon.serve(System.in, replies);
             } else {
-                System.out.println("✗ Could not parse swap description: " + swapDescription);
-                return false;
+                daemon.listen(Integer.parseInt(where));
             }
+        } catch (IOException e) {
+            System.err.println("Server Error: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Server Error: " + e.getMessage());
         }
+    }
 
-        boolean isValid = currentState.equals(targetState);
-        System.out.println("Final state matches target: " + isValid);
-        return isValid;
+    public static void startGenerator(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: generate <output directory> [sizes] [swap counts] [instances of each] [seed]");
+            return;
+        }
+        try {
+            int[] sizes = args.length > 2 ? parseInts(args[2]) : ScalingHarness.DEFAULT_SIZES;
+            int[] swapCounts = args.length > 3 ? parseInts(args[3]) : ScalingHarness.DEFAULT_SWAP_COUNTS;
+            int count = args.length > 4 ? Integer.parseInt(args[4]) : ScalingHarness.DEFAULT_INSTANCES;
+            long seed = args.length > 5 ? Long.parseLong(args[5]) : InstanceGenerator.DEFAULT_SEED;
+            int written = InstanceGenerator.write(Paths.get(args[1]), sizes, swapCounts, count, seed);
+            System.out.println("Wrote " + written + " instances to " + args[1] + ", listed in " + InstanceGenerator.MANIFEST);
+        } catch (IOException e) {
+            System.err.println("File I/O Error: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Generator Error: " + e.getMessage());
+        }
+    }
+
+    public static void startScaling(String[] args, SolverOptions options) {
+        if (args.length < 2) {
+            System.err.println("Usage: scale <output .csv> [baseline .csv, or - for none] [sizes] [swap counts]"
+                    + " [solver modes, or all] [timeout in seconds] [instances of each] [seed]");
+            return;
+        }
+        try {
+            Path output = Paths.get(args[1]);
+            Path baseline = args.length > 2 && !args[2].equals("-") ? Paths.get(args[2]) : null;
+            int[] sizes = args.length > 3 ? parseInts(args[3]) : ScalingHarness.DEFAULT_SIZES;
+            int[] swapCounts = args.length > 4 ? parseInts(args[4]) : ScalingHarness.DEFAULT_SWAP_COUNTS;
+            SolverMode[] modes = args.length > 5 && !args[5].equalsIgnoreCase("all")
+                    ? Arrays.stream(args[5].split(",")).map(Main::parseMode).toArray(SolverMode[]::new)
+                    : SolverMode.values();
+            if (Arrays.asList(modes).contains(null)) return;
+            long timeoutSeconds = args.length > 6 ? Long.parseLong(args[6]) : ScalingHarness.DEFAULT_TIMEOUT_SECONDS;
+            int count = args.length > 7 ? Integer.parseInt(args[7]) : ScalingHarness.DEFAULT_INSTANCES;
+            long seed = args.length > 8 ? Long.parseLong(args[8]) : InstanceGenerator.DEFAULT_SEED;
+
+            System.out.println("\n=== TREE SORTING SCALING ===");
+            System.out.println("Sizes: " + Arrays.toString(sizes) + ", swaps: " + Arrays.toString(swapCounts)
+                    + ", modes: " + Arrays.toString(modes) + ", timeout: " + timeoutSeconds + " s");
+            long startTime = System.currentTimeMillis();
+            List<String> regressions = ScalingHarness.run(sizes, swapCounts, modes, count, seed, options,
+                    timeoutSeconds, output, baseline);
+            long endTime = System.currentTimeMillis();
+            System.out.println("Finished in " + (endTime - startTime) + " ms, results in " + output);
+            if (baseline == null) return;
+            if (regressions.isEmpty()) {
+                System.out.println("No regressions against " + baseline);
+            } else {
+                System.out.println(regressions.size() + " regressions against " + baseline + ":");
+                regressions.forEach(regression -> System.out.println("  " + regression));
+            }
+        } catch (IOException e) {
+            System.err.println("File I/O Error: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Scaling Error: " + e.getMessage());
+        }
+    }
+
+    // the mode named on the command line in any case, or null after printing the valid names
+    private static SolverMode parseMode(String name) {
+        for (SolverMode mode : SolverMode.values()) {
+            if (mode.name().equalsIgnoreCase(name.trim())) return mode;
+        }
+        System.err.println("Unknown solver mode '" + name.trim() + "', expected one of: "
+                + Arrays.stream(SolverMode.values()).map(mode -> mode.name().toLowerCase()).collect(Collectors.joining(", ")));
+        return null;
+    }
+
+    // comma separated numbers such as 7,15,31
+    private static int[] parseInts(String list) {
+        return Arrays.stream(list.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
     }
 
     /*
-      Extracts the first node index from a swap description
+      Verifies that the solution actually transforms initial state to target state
+      the check itself is SolutionVerifier replaying the moves in place, the steps are only printed for the reader
      */
-    private static int extractNodeIndex(String swapDescription) {
-        try {
-            // Look for "Swap node X" pattern
-            int startIndex = swapDescription.indexOf("Swap node ") + "Swap node ".length();
-            int endIndex = swapDescription.indexOf(" ", startIndex);
-            if (endIndex == -1) endIndex = swapDescription.length();
+    private static boolean verifySolution(TreeState initialState, SearchResult result) {
 
-            String nodeIndexStr = swapDescription.substring(startIndex, endIndex);
-            return Integer.parseInt(nodeIndexStr);
-        } catch (Exception e) {
-            return -1;
+        TreeState currentState = initialState;
+        System.out.println("Applying swap sequence step by step:");
+        System.out.println("Step 0: " + currentState);
+
+        int[] moves = result.getMoves();
+        List<String> swapSequence = result.getSwapSequence();
+        for (int i = 0; i < moves.length; i++) {
+            currentState = currentState.swap(moves[i]);
+            if (currentState == null) {
+                System.out.println("✗ Invalid swap at step " + (i + 1));
+                break;
+            }
+            System.out.println("Step " + (i + 1) + ": " + currentState + " ← " + swapSequence.get(i));
         }
+
+        boolean isValid = new SolutionVerifier(initialState.getNumberOfNode()).verify(initialState, result);
+        System.out.println("Final state matches target: " + isValid);
+        return isValid;
     }
 }
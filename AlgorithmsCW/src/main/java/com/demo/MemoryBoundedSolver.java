@@ -0,0 +1,244 @@
+package com.demo;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/*
+    Memory bounded A* in the style of SMA*: the search never keeps more than a fixed number of nodes.
+
+    Nodes form an explicit search tree. When the budget is reached, the worst leaf (highest f, then shallowest) is dropped
+    and its f is backed up into its parent as the smallest f among the parent's forgotten children.
+    A parent with forgotten children stays in the open set under that backed up value, so the forgotten part of the
+    search is still accounted for. When it comes out again its missing children are generated again, and each evicted
+    child counts as one regeneration the first time it is generated after its eviction, whether or not it is stored.
+
+    Once half the budget is in use, expansions only store the children whose f equals the parent's current value and
+    keep the parent open under the best f of the rest (partial expansion). Most children of an A* expansion have a
+    higher f and would only be evicted again, so this keeps the tie level of f in memory instead of thrashing on it.
+
+    f is carried down with pathmax (a child never gets a lower f than its parent), so the backed up values only rise
+    and the first goal taken out of the open set is optimal, as long as the budget can hold the solution path
+    together with the children of the nodes on it. Below that the search gives up and returns null.
+*/
+
+public class MemoryBoundedSolver {
+
+    public static final int INFINITE = Integer.MAX_VALUE;
+
+    // rough heap cost of one stored node: the node, its TreeState with both packed arrays and the set and map entries
+    private static final int NODE_OVERHEAD_BYTES = 200;
+
+    private final TreeState targetState;
+    private final int[] swaps; // child index of every swap the search may use
+    private final long maxNodes;
+
+    private final TreeSet<Node> openSet = new TreeSet<>(); // nodes with children still to generate, lowest key first
+    private final TreeSet<Node> leaves = new TreeSet<>(); // open nodes with no stored children, the eviction candidates
+    private final Map<TreeState, Node> inMemory = new HashMap<>(); // cheapest stored node of every state
+    private long storedNodes;
+    private long nextId;
+    private int nodesExplored;
+    private int nodesGenerated;
+    private SearchStats stats;
+    private int evictions;
+    private int regenerations;
+
+    private MemoryBoundedSolver(TreeState targetState, int[] swaps, long maxNodes) {
+        this.targetState = targetState;
+        this.swaps = swaps;
+        this.maxNodes = maxNodes;
+    }
+
+    public static SearchResult solve(TreeState initialState, TreeState targetState, Heuristic heuristic, int[] swaps) {
+        return solve(initialState, targetState, heuristic, swaps, defaultBudget(initialState.getNumberOfNode()));
+    }
+
+    // maxNodes is the number of search nodes kept at once, see nodesForBytes to turn a byte budget into one
+    public static SearchResult solve(TreeState initialState, TreeState targetState, Heuristic heuristic, int[] swaps,
+                                     long maxNodes) {
+        return solve(initialState, targetState, heuristic, swaps, maxNodes,
+                new SearchStats(SolverMode.MEMORY_BOUNDED, initialState.getNumberOfNode()));
+    }
+
+    // same, reporting the f bound and the node counts to stats while it runs
+    public static SearchResult solve(TreeState initialState, TreeState targetState, Heuristic heuristic, int[] swaps,
+                                     long maxNodes, SearchStats stats) {
+        if (maxNodes < 2) {
+            throw new IllegalArgumentException("Memory budget must hold at least 2 nodes, got " + maxNodes);
+        }
+        MemoryBoundedSolver solver = new MemoryBoundedSolver(targetState, swaps, maxNodes);
+        solver.stats = stats;
+        Node goal = solver.search(initialState.withHeuristic(heuristic));
+        if (goal == null) return null;
+
+        SearchResult result = SearchResult.fromMoves(initialState, goal.toMoves(), solver.nodesExplored,
+                solver.nodesGenerated, goal.gScore);
+        result.setMemoryCounters(solver.evictions, solver.regenerations);
+        return result;
+    }
+
+    // number of nodes that fit in about this many bytes of heap
+    public static long nodesForBytes(long bytes, int numberOfNodes) {
+        long packedBytes = 2L * TreeState.wordCount(numberOfNodes + 1) * Long.BYTES;
+        return Math.max(2, bytes / (NODE_OVERHEAD_BYTES + packedBytes));
+    }
+
+    // a quarter of the heap, so one search cannot run the JVM out of memory
+    public static long defaultBudget(int numberOfNodes) {
+        return nodesForBytes(Runtime.getRuntime().maxMemory() / 4, numberOfNodes);
+    }
+
+    private Node search(TreeState startState) {
+        Node root = new Node(startState, null, 0, 0, startState.getHeuristic(), nextId++);
+        store(root);
+
+        while (!openSet.isEmpty() && !Thread.currentThread().isInterrupted()) {
+            Node best = openSet.pollFirst();
+            leaves.remove(best);
+            if (best.key() == INFINITE) return null; // every path left is known to be too long for the budget
+
+            if (best.state.equals(targetState)) return best;
+            if ((++nodesExplored & SearchStats.PROGRESS_MASK) == 0) {
+                stats.progress(nodesExplored, nodesGenerated, openSet.size(), (int) storedNodes);
+            }
+
+            int bound = best.key();
+            stats.boundReached(bound);
+            best.expanded = true;
+            best.forgottenF = INFINITE;
+            // once half the budget is used, only the children on the current f level are stored
+            boolean partial = storedNodes >= maxNodes / 2;
+
+            for (int child : swaps) {
+                if (child == best.swappedChild) continue; // would only undo the swap that led here
+                TreeState newState = best.state.swap(child);
+                int tentativeG = best.gScore + 1;
+
+                Node known = inMemory.get(newState);
+                if (known != null && known.gScore <= tentativeG) continue; // stored already, through a path as short
+                nodesGenerated++;
+                // a node that comes back after losing children generates the ones that are not stored any more
+                if (best.evictedChildren != null && best.evictedChildren.get(child)) {
+                    best.evictedChildren.clear(child);
+                    regenerations++;
+                }
+
+                // pathmax: the child's estimate is never below its parent's
+                int fScore = Math.max(best.fScore, tentativeG + newState.getHeuristic());
+                if (partial && fScore > bound) {
+                    // worse children are not stored yet, the parent stays open under their best f
+                    best.forgottenF = Math.min(best.forgottenF, fScore);
+                    continue;
+                }
+                Node node = new Node(newState, best, child, tentativeG, fScore, nextId++);
+                best.children++;
+                store(node);
+            }
+
+            if (best.forgottenF != INFINITE) {
+                openSet.add(best);
+                if (best.children == 0 && best.parent != null) leaves.add(best);
+            } else if (best.children == 0) {
+                // nothing new came out of it, so it has nothing left to offer
+                release(best, INFINITE);
+            }
+
+            while (storedNodes > maxNodes) {
+                if (!evictWorstLeaf()) return null; // only the root is left, the budget is too small
+            }
+        }
+        return null;
+    }
+
+    private void store(Node node) {
+        openSet.add(node);
+        if (node.parent != null) leaves.add(node);
+        inMemory.put(node.state, node);
+        storedNodes++;
+    }
+
+    // drops the worst leaf and backs its value up into its parent
+    private boolean evictWorstLeaf() {
+        Node node = leaves.pollLast(); // the root is never in here, so it always stays
+        if (node == null) return false;
+        evictions++;
+        release(node, node.key());
+        return true;
+    }
+
+    /*
+        removes a leaf from memory and tells its parent the best f that was lost with it
+        a parent left without stored children becomes a leaf itself, with no value left it is released too
+    */
+    private void release(Node node, int backedUpF) {
+        openSet.remove(node);
+        leaves.remove(node);
+        if (inMemory.get(node.state) == node) inMemory.remove(node.state);
+        storedNodes--;
+
+        Node parent = node.parent;
+        if (parent == null) return;
+        openSet.remove(parent); // its key changes below, so it has to leave the sets first
+        leaves.remove(parent);
+        parent.children--;
+        parent.forgottenF = Math.min(parent.forgottenF, backedUpF);
+        if (backedUpF != INFINITE) {
+            if (parent.evictedChildren == null) parent.evictedChildren = new BitSet();
+            parent.evictedChildren.set(node.swappedChild);
+        }
+        if (parent.children == 0 && parent.forgottenF == INFINITE) {
+            release(parent, INFINITE);
+        } else if (parent.forgottenF != INFINITE) {
+            openSet.add(parent);
+            if (parent.children == 0 && parent.parent != null) leaves.add(parent);
+        }
+    }
+
+    // node of the search tree, ordered by key then deepest first, the id keeps distinct nodes apart
+    private static class Node implements Comparable<Node> {
+
+        final TreeState state;
+        final Node parent;
+        final int swappedChild;
+        final int gScore;
+        final int fScore; // g + h raised by pathmax
+        final long id;
+        boolean expanded;
+        BitSet evictedChildren; // swaps whose child was evicted and not generated since, null until one is
+        int children; // children currently stored
+        int forgottenF = INFINITE; // lowest f among the children that were evicted
+
+        Node(TreeState state, Node parent, int swappedChild, int gScore, int fScore, long id) {
+            this.state = state;
+            this.parent = parent;
+            this.swappedChild = swappedChild;
+            this.gScore = gScore;
+            this.fScore = fScore;
+            this.id = id;
+        }
+
+        // value in the open set: its own f until it is expanded, then the best of what was forgotten below it
+        int key() {
+            return expanded ? forgottenF : fScore;
+        }
+
+        int[] toMoves() {
+            int[] moves = new int[gScore];
+            Node node = this;
+            for (int i = gScore - 1; i >= 0; i--) {
+                moves[i] = node.swappedChild;
+                node = node.parent;
+            }
+            return moves;
+        }
+
+        @Override
+        public int compareTo(Node other) {
+            if (key() != other.key()) return Integer.compare(key(), other.key());
+            if (gScore != other.gScore) return Integer.compare(other.gScore, gScore);
+            return Long.compare(id, other.id);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.demo;
+
+import java.util.Arrays;
+
+/*
+    Move pruning: the swaps worth trying after each swap, worked out once per search instead of at every node.
+
+    Swapping the same edge twice in a row only undoes the first swap, so the last move is never tried again.
+    Two swaps on edges that share no node commute, doing them in either order gives the same tree.
+    With canonical ordering a swap is not tried right after a commuting swap with a larger child index,
+    so only the order with the smaller child first is generated. Any path can be reordered that way without
+    getting longer, so an optimal solution is never lost.
+
+    Canonical ordering is only safe in depth-first searches that keep no duplicate table (IDA*).
+    With a table, the first path to reach a state may be a non-canonical one, and the canonical continuations
+    that the pruning then cuts off are never found through the other path, because it is thrown away as a duplicate.
+    The best-first engines therefore only use the inverse rule.
+*/
+
+public class MovePruning {
+
+    /*
+        successors[lastMove] lists the child indices to try after swapping lastMove, in the order of swaps.
+        Index 0 is never a move, it stands for the start where every swap is tried.
+    */
+    public static int[][] successors(int numberOfNodes, int[] swaps, boolean canonicalOrder) {
+        int[][] successors = new int[numberOfNodes][];
+        int[] buffer = new int[swaps.length];
+        for (int lastMove = 0; lastMove < numberOfNodes; lastMove++) {
+            int count = 0;
+            for (int child : swaps) {
+                if (child == lastMove) continue; // would undo the last swap
+                if (canonicalOrder && lastMove != 0 && child < lastMove && commute(child, lastMove)) continue;
+                buffer[count++] = child;
+            }
+            successors[lastMove] = Arrays.copyOf(buffer, count);
+        }
+        return successors;
+    }
+
+    // true if the edges above the two children share no node, so the two swaps can be done in either order
+    public static boolean commute(int childA, int childB) {
+        int parentA = (childA - 1) / 2;
+        int parentB = (childB - 1) / 2;
+        return childA != childB && parentA != parentB && parentA != childB && parentB != childA;
+    }
+}
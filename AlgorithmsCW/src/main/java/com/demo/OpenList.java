@@ -0,0 +1,107 @@
+package com.demo;
+
+import java.util.Arrays;
+
+/*
+    Open set made of integer buckets, used instead of java.util.PriorityQueue.
+    f and h are small integers, so nodes are kept in one stack per (f, h) pair and push and pop are O(1)
+    (the pointer to the lowest non-empty bucket only moves forward, apart from the rare push below it).
+    Popping takes the lowest f and breaks ties on the lowest h, so among nodes with the same f
+    the deepest one (highest g) comes out first. Entries with the same f and h come out last in, first out.
+
+    Entries are never removed when a shorter path to their state is found. The search drops such stale
+    entries when they come out, with the same state table probe that marks a state as explored.
+*/
+
+public class OpenList<T> {
+
+    private Level[] levels = new Level[64]; // one level per f
+    private int minF = Integer.MAX_VALUE; // no level below this holds an entry
+    private int size;
+
+    public void push(T item, int f, int h) {
+        if (f >= levels.length) levels = Arrays.copyOf(levels, Math.max(levels.length * 2, f + 1));
+        Level level = levels[f];
+        if (level == null) level = levels[f] = new Level();
+        level.push(item, h);
+        if (f < minF) minF = f;
+        size++;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T pop() {
+        if (size == 0) return null;
+        Level level = levels[advance()];
+        size--;
+        return (T) level.pop();
+    }
+
+    // smallest f in the list, or Integer.MAX_VALUE if it is empty
+    public int peekF() {
+        return size == 0 ? Integer.MAX_VALUE : advance();
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        for (Level level : levels) {
+            if (level != null) level.clear();
+        }
+        minF = Integer.MAX_VALUE;
+        size = 0;
+    }
+
+    // moves minF up to the first level that still holds something
+    private int advance() {
+        while (levels[minF] == null || levels[minF].count == 0) minF++;
+        return minF;
+    }
+
+    // all entries with one f, one LIFO stack per h
+    private static class Level {
+
+        Object[][] stacks = new Object[16][];
+        int[] sizes = new int[16];
+        int count;
+        int minH = Integer.MAX_VALUE;
+
+        void push(Object item, int h) {
+            if (h >= stacks.length) {
+                int length = Math.max(stacks.length * 2, h + 1);
+                stacks = Arrays.copyOf(stacks, length);
+                sizes = Arrays.copyOf(sizes, length);
+            }
+            Object[] stack = stacks[h];
+            if (stack == null) stack = stacks[h] = new Object[16];
+            else if (sizes[h] == stack.length) stack = stacks[h] = Arrays.copyOf(stack, stack.length * 2);
+
+            stack[sizes[h]++] = item;
+            count++;
+            if (h < minH) minH = h;
+        }
+
+        Object pop() {
+            while (sizes[minH] == 0) minH++;
+            Object[] stack = stacks[minH];
+            Object item = stack[--sizes[minH]];
+            stack[sizes[minH]] = null;
+            if (--count == 0) minH = Integer.MAX_VALUE;
+            return item;
+        }
+
+        void clear() {
+            for (int h = 0; h < stacks.length; h++) {
+                if (stacks[h] != null) Arrays.fill(stacks[h], 0, sizes[h], null);
+                sizes[h] = 0;
+            }
+            count = 0;
+            minH = Integer.MAX_VALUE;
+        }
+    }
+}
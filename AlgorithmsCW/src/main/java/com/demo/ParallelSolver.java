@@ -0,0 +1,247 @@
+package com.demo;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+    Hash distributed A* (HDA*).
+    Every state has one owner worker, picked from its Zobrist hash. Each worker keeps its own open set and state table
+    and only ever explores the states it owns, so there is no shared hash table and no locking on the hot path.
+    Children owned by another worker are collected in batches and posted to that worker's lock-free inbox.
+
+    Workers expand their own best node, not the global best, so a state can be explored before its shortest path arrives.
+    It is then opened again when the shorter path comes in. A solution found by any worker becomes the shared incumbent,
+    and the search ends only when no worker holds a node with f below it and no batch is still on its way,
+    so the incumbent is optimal.
+
+    Termination uses one counter: batches in flight plus workers that have work.
+    A worker that picks up a batch while idle counts itself busy before the batch is taken off the counter,
+    so the counter can only reach zero when everything has stopped.
+*/
+
+public class ParallelSolver {
+
+    private static final int BATCH_SIZE = 64; // children buffered per destination before a batch is posted
+    private static final int FLUSH_INTERVAL = 16; // expansions between flushes of partly filled batches
+    private static final int PUBLISH_INTERVAL = 1024; // expansions a worker counts on its own before adding them to the totals
+    private static final long PROGRESS_MILLIS = 250; // how often the calling thread reports progress while the workers run
+
+    private final TreeState targetState;
+    private final int[] swaps; // child index of every swap the search may use
+    private final Worker[] workers;
+    private final AtomicLong pendingWork = new AtomicLong(); // batches in flight + busy workers
+    private final AtomicLong nodesExplored = new AtomicLong();
+    private final AtomicLong nodesGenerated = new AtomicLong();
+    private final Object incumbentLock = new Object();
+    private volatile int bestCost = Integer.MAX_VALUE;
+    private SearchNode bestNode;
+
+    private ParallelSolver(TreeState targetState, int[] swaps, int threads) {
+        this.targetState = targetState;
+        this.swaps = swaps;
+        this.workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(i, targetState.getNumberOfNode());
+        }
+    }
+
+    public static SearchResult solve(TreeState initialState, TreeState targetState, Heuristic heuristic, int threads) {
+        return solve(initialState, targetState, heuristic, Decomposition.allSwaps(initialState.getNumberOfNode()), threads);
+    }
+
+    public static SearchResult solve(TreeState initialState, TreeState targetState, Heuristic heuristic, int[] swaps,
+                                     int threads) {
+        return solve(initialState, targetState, heuristic, swaps, threads,
+                new SearchStats(SolverMode.PARALLEL, initialState.getNumberOfNode()));
+    }
+
+    // same, the calling thread reports the node counts of all workers to stats while they run
+    public static SearchResult solve(TreeState initialState, TreeState targetState, Heuristic heuristic, int[] swaps,
+                                     int threads, SearchStats stats) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1, got " + threads);
+        }
+        ParallelSolver solver = new ParallelSolver(targetState, swaps, threads);
+
+        TreeState startState = initialState.withHeuristic(heuristic);
+        SearchNode start = new SearchNode(startState, null, -1, 0, startState.getHeuristic());
+        solver.post(solver.ownerOf(startState), List.of(start));
+
+        Thread[] threadArray = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            threadArray[i] = new Thread(solver.workers[i], "hda-worker-" + i);
+            threadArray[i].start();
+        }
+        for (Thread thread : threadArray) {
+            try {
+                while (!thread.join(Duration.ofMillis(PROGRESS_MILLIS))) {
+                    stats.progress(solver.nodesExplored.get(), solver.nodesGenerated.get(), 0, 0);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (Thread other : threadArray) other.interrupt();
+                return null;
+            }
+        }
+
+        if (solver.bestNode == null) return null;
+        return SearchResult.fromMoves(initialState, solver.bestNode.toMoves(), (int) solver.nodesExplored.get(),
+                (int) solver.nodesGenerated.get(), solver.bestCost);
+    }
+
+    // owner worker of a state, taken from the upper half of the Zobrist hash so it does not follow the table slot
+    private int ownerOf(TreeState state) {
+        return (int) ((state.getZobristHash() >>> 32) & 0x7FFFFFFF) % workers.length;
+    }
+
+    // the counter goes up before the batch becomes visible, so it never drops to zero with a batch in flight
+    private void post(int owner, List<SearchNode> batch) {
+        pendingWork.incrementAndGet();
+        workers[owner].inbox.offer(batch);
+    }
+
+    private void offerSolution(SearchNode goal) {
+        synchronized (incumbentLock) {
+            if (goal.gScore < bestCost) {
+                bestNode = goal;
+                bestCost = goal.gScore;
+            }
+        }
+    }
+
+    private class Worker implements Runnable {
+
+        final int id;
+        final ConcurrentLinkedQueue<List<SearchNode>> inbox = new ConcurrentLinkedQueue<>();
+        final OpenList<SearchNode> openSet = new OpenList<>();
+        final StateTable stateTable; // only ever touched by this worker
+        final List<List<SearchNode>> outgoing = new ArrayList<>(); // one buffer per destination worker
+        boolean busy;
+        long expanded; // counted since the last publishCounts()
+        long generated;
+
+        Worker(int id, int numberOfNodes) {
+            this.id = id;
+            this.stateTable = new StateTable(numberOfNodes);
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < workers.length; i++) outgoing.add(new ArrayList<>());
+
+            int sinceFlush = 0;
+            while (!Thread.currentThread().isInterrupted()) {
+                drainInbox();
+
+                SearchNode node = pollExpandable();
+                if (node != null) {
+                    expand(node);
+                    if (expanded >= PUBLISH_INTERVAL) publishCounts();
+                    if (++sinceFlush >= FLUSH_INTERVAL) {
+                        flush();
+                        sinceFlush = 0;
+                    }
+                    continue;
+                }
+
+                // nothing left below the incumbent: hand over what is buffered, then stop counting as busy
+                flush();
+                sinceFlush = 0;
+                if (!inbox.isEmpty()) continue;
+                if (busy) {
+                    busy = false;
+                    pendingWork.decrementAndGet();
+                }
+                if (pendingWork.get() == 0) break;
+                LockSupport.parkNanos(10_000);
+            }
+            publishCounts();
+        }
+
+        private void publishCounts() {
+            nodesExplored.addAndGet(expanded);
+            nodesGenerated.addAndGet(generated);
+            expanded = 0;
+            generated = 0;
+        }
+
+        private void drainInbox() {
+            List<SearchNode> batch;
+            while ((batch = inbox.poll()) != null) {
+                if (!busy) {
+                    busy = true;
+                    pendingWork.incrementAndGet(); // counted busy before the batch stops counting
+                }
+                for (SearchNode node : batch) {
+                    addLocal(node);
+                }
+                pendingWork.decrementAndGet();
+            }
+        }
+
+        // next node worth expanding, skipping stale entries and anything that cannot beat the incumbent
+        private SearchNode pollExpandable() {
+            while (!openSet.isEmpty()) {
+                if (openSet.peekF() >= bestCost) {
+                    openSet.clear(); // ordered by f, so nothing left can beat the incumbent
+                    return null;
+                }
+                SearchNode node = openSet.pop();
+                if (node.gScore != stateTable.getGScore(node.state)) continue; // a shorter path arrived later
+                if (!stateTable.close(node.state, node.gScore)) continue;
+                return node;
+            }
+            return null;
+        }
+
+        private void expand(SearchNode current) {
+            expanded++;
+            if (current.state.equals(targetState)) {
+                offerSolution(current);
+                return;
+            }
+
+            for (int child : swaps) {
+                if (child == current.swappedChild) continue; // would only undo the swap that led here
+                TreeState newState = current.state.swap(child);
+                generated++;
+                SearchNode node = new SearchNode(newState, current, child, current.gScore + 1, newState.getHeuristic());
+                if (node.fScore >= bestCost) continue;
+
+                int owner = ownerOf(newState);
+                if (owner == id) {
+                    addLocal(node);
+                } else {
+                    List<SearchNode> buffer = outgoing.get(owner);
+                    buffer.add(node);
+                    if (buffer.size() >= BATCH_SIZE) {
+                        post(owner, buffer);
+                        outgoing.set(owner, new ArrayList<>());
+                    }
+                }
+            }
+        }
+
+        // keeps the node if it is the shortest known path to its state, opening the state again if it was explored
+        private void addLocal(SearchNode node) {
+            if (node.fScore >= bestCost) return;
+            if (stateTable.lowerGScore(node.state, node.gScore)) {
+                openSet.push(node, node.fScore, node.hScore);
+            }
+        }
+
+        private void flush() {
+            for (int owner = 0; owner < outgoing.size(); owner++) {
+                List<SearchNode> buffer = outgoing.get(owner);
+                if (!buffer.isEmpty()) {
+                    post(owner, buffer);
+                    outgoing.set(owner, new ArrayList<>());
+                }
+            }
+        }
+    }
+}
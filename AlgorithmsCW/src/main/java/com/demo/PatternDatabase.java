@@ -0,0 +1,193 @@
+package com.demo;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    Pattern database for one group of three values: the value that belongs on a node and the two values that belong on its children.
+    Every other value is treated as a blank, and a table entry holds the exact cost of moving the three values home,
+    counted in half swaps (moving one group value along an edge costs 1, swapping two group values costs 2).
+    Because a swap moves two values, the half-swap costs of disjoint groups can be added up and stay a lower bound.
+
+    All nodes on one level of a perfect tree are the same up to mirroring subtrees,
+    so one table built for the leftmost node of a level serves every group rooted on that level.
+    Tables are built offline by main() into the pdb directory and loaded at startup, they are built in memory if the file is missing.
+*/
+
+public class PatternDatabase {
+
+    public static final String DIRECTORY = "pdb";
+    private static final int UNSEEN = 0xFF;
+    private static final Map<String, PatternDatabase> LOADED = new ConcurrentHashMap<>();
+
+    private final int numberOfNodes;
+    private final int rootDepth;
+    private final byte[] table; // half-swap cost for every placement (p0, p1, p2) of the three values
+
+    private PatternDatabase(int numberOfNodes, int rootDepth, byte[] table) {
+        this.numberOfNodes = numberOfNodes;
+        this.rootDepth = rootDepth;
+        this.table = table;
+    }
+
+    /*
+        Offline builder, writes the tables used by every perfect tree size to the pdb directory
+        sizes can be given as arguments, by default 7 to 127
+    */
+    public static void main(String[] args) throws IOException {
+        int[] sizes = args.length == 0 ? new int[]{7, 15, 31, 63, 127} : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        Files.createDirectories(Paths.get(DIRECTORY));
+
+        for (int n : sizes) {
+            for (int depth : groupRootDepths(n)) {
+                long start = System.currentTimeMillis();
+                PatternDatabase database = build(n, depth);
+                Path file = fileFor(n, depth);
+                database.save(file);
+                System.out.printf("Built %s (%d bytes) in %d ms%n", file, database.table.length, System.currentTimeMillis() - start);
+            }
+        }
+    }
+
+    // depths of the group roots used for a tree of this size: the level above the leaves, then every second level up
+    public static int[] groupRootDepths(int numberOfNodes) {
+        if (!isPerfect(numberOfNodes) || numberOfNodes < 3) return new int[0];
+        int leafDepth = depthOf(numberOfNodes - 1);
+        int[] depths = new int[(leafDepth + 1) / 2];
+        for (int i = 0; i < depths.length; i++) {
+            depths[i] = leafDepth - 1 - 2 * i;
+        }
+        return depths;
+    }
+
+    // returns the table from memory, from the pdb directory, or builds it if neither has it
+    public static PatternDatabase get(int numberOfNodes, int rootDepth) {
+        return LOADED.computeIfAbsent(numberOfNodes + "_" + rootDepth, key -> {
+            Path file = fileFor(numberOfNodes, rootDepth);
+            if (Files.isReadable(file)) {
+                try {
+                    return load(file, numberOfNodes, rootDepth);
+                } catch (IOException e) {
+                    System.err.println("Could not read pattern database " + file + ", building it instead: " + e.getMessage());
+                }
+            }
+            return build(numberOfNodes, rootDepth);
+        });
+    }
+
+    public static Path fileFor(int numberOfNodes, int rootDepth) {
+        return Paths.get(DIRECTORY, "pdb_" + numberOfNodes + "_" + rootDepth + ".bin");
+    }
+
+    static boolean isPerfect(int numberOfNodes) {
+        return numberOfNodes > 0 && ((numberOfNodes + 1) & numberOfNodes) == 0;
+    }
+
+    static int depthOf(int index) {
+        return 31 - Integer.numberOfLeadingZeros(index + 1);
+    }
+
+    // cost in half swaps of the group values sitting at p0 (node), p1 (left child) and p2 (right child) of the canonical group
+    int get(int p0, int p1, int p2) {
+        return table[(p0 * numberOfNodes + p1) * numberOfNodes + p2] & 0xFF;
+    }
+
+    /*
+        Dijkstra over every placement of the three values, starting from the goal placement.
+        Moves cost the same in both directions, so distance from the goal is distance to the goal.
+        Costs are only 1 or 2, so the queue is a list of buckets, one per distance.
+    */
+    public static PatternDatabase build(int n, int rootDepth) {
+        byte[] table = new byte[n * n * n];
+        Arrays.fill(table, (byte) UNSEEN);
+
+        int root = (1 << rootDepth) - 1;
+        int goal = (root * n + (2 * root + 1)) * n + (2 * root + 2);
+
+        IntBucket[] buckets = new IntBucket[3]; // distance d lives in buckets[d % 3], a move never adds more than 2
+        for (int i = 0; i < buckets.length; i++) buckets[i] = new IntBucket();
+        table[goal] = 0;
+        buckets[0].add(goal);
+
+        int[] positions = new int[3];
+        int[] neighbours = new int[3];
+        int pending = 1;
+
+        for (int distance = 0; pending > 0; distance++) {
+            IntBucket bucket = buckets[distance % 3];
+            for (int i = 0; i < bucket.size; i++) {
+                int placement = bucket.items[i];
+                if ((table[placement] & 0xFF) != distance) continue; // reached later with a shorter distance
+                pending--;
+
+                positions[0] = placement / (n * n);
+                positions[1] = (placement / n) % n;
+                positions[2] = placement % n;
+
+                for (int moved = 0; moved < 3; moved++) {
+                    int from = positions[moved];
+                    neighbours[0] = from == 0 ? -1 : (from - 1) / 2;
+                    neighbours[1] = 2 * from + 1 < n ? 2 * from + 1 : -1;
+                    neighbours[2] = 2 * from + 2 < n ? 2 * from + 2 : -1;
+
+                    for (int to : neighbours) {
+                        if (to < 0) continue;
+                        int cost = 1;
+                        int[] next = positions.clone();
+                        next[moved] = to;
+                        for (int other = 0; other < 3; other++) {
+                            if (other != moved && positions[other] == to) {
+                                next[other] = from; // two group values swap with each other
+                                cost = 2;
+                            }
+                        }
+                        int nextPlacement = (next[0] * n + next[1]) * n + next[2];
+                        int nextDistance = distance + cost;
+                        if (nextDistance < (table[nextPlacement] & 0xFF)) {
+                            if ((table[nextPlacement] & 0xFF) == UNSEEN) pending++;
+                            table[nextPlacement] = (byte) nextDistance;
+                            buckets[nextDistance % 3].add(nextPlacement);
+                        }
+                    }
+                }
+            }
+            bucket.size = 0;
+        }
+        return new PatternDatabase(n, rootDepth, table);
+    }
+
+    public void save(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(numberOfNodes);
+            out.writeInt(rootDepth);
+            out.write(table);
+        }
+    }
+
+    public static PatternDatabase load(Path file, int numberOfNodes, int rootDepth) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != numberOfNodes || in.readInt() != rootDepth) {
+                throw new IOException("file was built for a different tree size or depth");
+            }
+            byte[] table = new byte[numberOfNodes * numberOfNodes * numberOfNodes];
+            in.readFully(table);
+            return new PatternDatabase(numberOfNodes, rootDepth, table);
+        }
+    }
+
+    // growable int list used as one Dijkstra bucket
+    private static class IntBucket {
+        int[] items = new int[1024];
+        int size;
+
+        void add(int item) {
+            if (size == items.length) items = Arrays.copyOf(items, size * 2);
+            items[size++] = item;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.demo;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/*
+    Scaling regression harness: solves generated instances (see InstanceGenerator) over a sweep of tree sizes,
+    swap counts and solver modes, and writes one CSV row per solve with the nodes explored, time and peak heap.
+
+    Solves run one at a time on a single solver thread, with a collection and a reset of the heap peaks before each,
+    so peak_heap_bytes belongs to that solve alone (plus what the JVM held before it). The solution cache is not used.
+    Once a mode times out at a size, the larger swap counts of that size are skipped for it.
+
+    With a baseline (the results file of an earlier run) every row is compared to the baseline row of the same
+    mode, size, swap count and seed, and the regression column says what got worse: a solve that no longer finishes,
+    a longer solution, or more nodes, time or heap than the baseline plus its tolerance.
+    Times and heap are only comparable between runs on the same machine and JVM settings.
+*/
+
+public class ScalingHarness {
+
+    public static final int[] DEFAULT_SIZES = {7, 15, 31, 63, 127, 255};
+    public static final int[] DEFAULT_SWAP_COUNTS = {4, 8, 16, 32};
+    public static final int DEFAULT_INSTANCES = 3;
+    public static final long DEFAULT_TIMEOUT_SECONDS = 30;
+
+    private static final double NODE_TOLERANCE = 1.10; // only PARALLEL explores a different number of nodes between runs
+    private static final double TIME_TOLERANCE = 1.5;
+    private static final long TIME_SLACK_MILLIS = 50; // times this short are mostly noise
+    private static final double HEAP_TOLERANCE = 1.5;
+    private static final long HEAP_SLACK_BYTES = 16L << 20;
+
+    private static final String[] COLUMNS = {"mode", "nodes", "swaps_applied", "instance", "seed", "upper_bound", "status",
+            "swaps", "lower_bound", "nodes_explored", "nodes_generated", "time_ms", "peak_heap_bytes", "verified", "regression"};
+    private static final int KEY_COLUMNS = 5; // mode to seed name the solve
+
+    private final SolverOptions options;
+    private final long timeoutMillis;
+    private final ExecutorService solver = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "scaling-solver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ScalingHarness(SolverOptions options, long timeoutMillis) {
+        this.options = options.withParallelRegions(false);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /*
+        solves instances instances of every size and swap count with every mode and writes the rows to output
+        baseline may be null, otherwise returns one line for every row that regressed against it
+    */
+    public static List<String> run(int[] sizes, int[] swapCounts, SolverMode[] modes, int instances, long seed,
+                                   long timeoutSeconds, Path output, Path baseline) throws IOException {
+        return run(sizes, swapCounts, modes, instances, seed, SolverOptions.DEFAULT, timeoutSeconds, output, baseline);
+    }
+
+    // same, with the settings of every solve from options
+    public static List<String> run(int[] sizes, int[] swapCounts, SolverMode[] modes, int instances, long seed,
+                                   SolverOptions options, long timeoutSeconds, Path output, Path baseline)
+            throws IOException {
+        if (timeoutSeconds < 1) {
+            throw new IllegalArgumentException("Timeout must be at least 1 second, got " + timeoutSeconds);
+        }
+        if (instances < 1) {
+            throw new IllegalArgumentException("Instance count must be at least 1, got " + instances);
+        }
+        Map<String, Map<String, String>> baselineRows = baseline == null ? Map.of() : readResults(baseline);
+        ScalingHarness harness = new ScalingHarness(options, TimeUnit.SECONDS.toMillis(timeoutSeconds));
+
+        List<String> regressions = new ArrayList<>();
+        try (BufferedWriter writer = Files.newBufferedWriter(output)) {
+            writeLine(writer, String.join(",", COLUMNS));
+            for (int n : sizes) {
+                Set<SolverMode> timedOut = new HashSet<>(); // modes that did not finish a smaller swap count of this size
+                for (int k : swapCounts) {
+                    for (int index = 0; index < instances; index++) {
+                        long instanceSeed = InstanceGenerator.instanceSeed(seed, n, k, index);
+                        TreeState initialState = new TreeState(InstanceGenerator.generate(n, k, instanceSeed));
+                        for (SolverMode mode : modes) {
+                            Map<String, String> row = new HashMap<>();
+                            row.put("mode", mode.name());
+                            row.put("nodes", String.valueOf(n));
+                            row.put("swaps_applied", String.valueOf(k));
+                            row.put("instance", String.valueOf(index));
+                            row.put("seed", String.valueOf(instanceSeed));
+                            row.put("upper_bound", String.valueOf(k));
+                            if (timedOut.contains(mode)) {
+                                row.put("status", "skipped");
+                            } else {
+                                harness.solve(initialState, mode, row);
+                                if ("timeout".equals(row.get("status"))) timedOut.add(mode);
+                            }
+
+                            Map<String, String> base = baselineRows.get(key(row));
+                            String regression = base == null ? "" : compare(row, base);
+                            if (!"true".equals(row.getOrDefault("verified", "true"))) {
+                                regression = regression.isEmpty() ? "invalid solution" : "invalid solution; " + regression;
+                            }
+                            row.put("regression", regression);
+                            if (!regression.isEmpty()) regressions.add(key(row) + ": " + regression);
+                            writeLine(writer, toCsv(row));
+                        }
+                    }
+                }
+            }
+        } finally {
+            harness.solver.shutdownNow();
+        }
+        return regressions;
+    }
+
+    /*
+        solves one instance on the solver thread and fills in the result columns of row
+        the timeout and the measurements start when the solver thread picks it up, a timed out solve may still be unwinding
+    */
+    private void solve(TreeState initialState, SolverMode mode, Map<String, String> row) {
+        CountDownLatch started = new CountDownLatch(1);
+        long[] startTime = new long[1];
+        Future<SearchResult> future = solver.submit(() -> {
+            System.gc(); // so the peak below is not left over from the solve before
+            ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+            startTime[0] = System.nanoTime();
+            started.countDown();
+            return TreeSolver.solve(initialState, mode, options);
+        });
+        SearchResult result;
+        try {
+            started.await();
+            result = future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            row.put("status", "timeout");
+            row.put("time_ms", String.valueOf(timeoutMillis));
+            return;
+        } catch (ExecutionException e) {
+            row.put("status", "error");
+            return;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            row.put("status", "error");
+            return;
+        }
+        row.put("time_ms", String.valueOf(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime[0])));
+        row.put("peak_heap_bytes", String.valueOf(BatchSolver.peakHeapBytes()));
+        if (result == null) {
+            row.put("status", "no_solution");
+            return;
+        }
+        row.put("status", "solved");
+        row.put("swaps", String.valueOf(result.getNumberOfSwaps()));
+        row.put("lower_bound", String.valueOf(result.getLowerBound()));
+        row.put("nodes_explored", String.valueOf(result.getNodesExplored()));
+        row.put("nodes_generated", String.valueOf(result.getNodesGenerated()));
+        row.put("verified", String.valueOf(new SolutionVerifier(initialState.getNumberOfNode()).verify(initialState, result)));
+    }
+
+    // what got worse from base to row, separated by "; ", or an empty string
+    private static String compare(Map<String, String> row, Map<String, String> base) {
+        List<String> reasons = new ArrayList<>();
+        String status = row.get("status");
+        String baseStatus = base.get("status");
+        if ("solved".equals(baseStatus) && !"solved".equals(status)) {
+            reasons.add("status " + baseStatus + " -> " + status);
+        }
+        if ("solved".equals(baseStatus) && "solved".equals(status)) {
+            if (number(row, "swaps") > number(base, "swaps")) {
+                reasons.add("swaps " + base.get("swaps") + " -> " + row.get("swaps"));
+            }
+            if (number(row, "nodes_explored") > number(base, "nodes_explored") * NODE_TOLERANCE) {
+                reasons.add("nodes_explored " + base.get("nodes_explored") + " -> " + row.get("nodes_explored"));
+            }
+            if (number(row, "time_ms") > number(base, "time_ms") * TIME_TOLERANCE + TIME_SLACK_MILLIS) {
+                reasons.add("time_ms " + base.get("time_ms") + " -> " + row.get("time_ms"));
+            }
+            if (number(row, "peak_heap_bytes") > number(base, "peak_heap_bytes") * HEAP_TOLERANCE + HEAP_SLACK_BYTES) {
+                reasons.add("peak_heap_bytes " + base.get("peak_heap_bytes") + " -> " + row.get("peak_heap_bytes"));
+            }
+        }
+        return String.join("; ", reasons);
+    }
+
+    // a missing or empty column counts as 0
+    private static double number(Map<String, String> row, String column) {
+        String value = row.get(column);
+        return value == null || value.isEmpty() ? 0 : Double.parseDouble(value);
+    }
+
+    // rows of an earlier results file by key, columns are found by the header so older files still compare
+    private static Map<String, Map<String, String>> readResults(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file);
+        if (lines.isEmpty()) {
+            throw new IllegalArgumentException("Baseline " + file + " is empty");
+        }
+        String[] header = lines.get(0).split(",", -1);
+        for (int i = 0; i < KEY_COLUMNS; i++) {
+            if (!List.of(header).contains(COLUMNS[i])) {
+                throw new IllegalArgumentException("Baseline " + file + " has no " + COLUMNS[i] + " column");
+            }
+        }
+
+        Map<String, Map<String, String>> rows = new HashMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isBlank()) continue;
+            String[] values = line.split(",", -1);
+            Map<String, String> row = new HashMap<>();
+            for (int i = 0; i < header.length && i < values.length; i++) {
+                row.put(header[i], values[i]);
+            }
+            rows.put(key(row), row);
+        }
+        return rows;
+    }
+
+    private static String key(Map<String, String> row) {
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < KEY_COLUMNS; i++) {
+            if (i > 0) key.append(' ');
+            key.append(COLUMNS[i]).append('=').append(row.get(COLUMNS[i]));
+        }
+        return key.toString();
+    }
+
+    // the columns in order, a column the solve did not get to is left empty (regressions never hold commas)
+    private static String toCsv(Map<String, String> row) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (i > 0) line.append(',');
+            line.append(row.getOrDefault(COLUMNS[i], ""));
+        }
+        return line.toString();
+    }
+
+    // flushed right away so a long sweep can be followed
+    private static void writeLine(BufferedWriter writer, String line) throws IOException {
+        writer.write(line);
+        writer.newLine();
+        writer.flush();
+    }
+}
@@ -0,0 +1,24 @@
+package com.demo;
+
+/*
+    Receives the metrics of every search TreeSolver runs, see TreeSolver.addListener.
+    A decomposed tree runs one search per region, so a solve can report several searches.
+
+    Calls come from the searching thread (regions may be searched in parallel), so they should return quickly.
+    Progress is reported every SearchStats.PROGRESS_INTERVAL expansions (every 250 ms for the parallel engine,
+    whose workers count on their own threads), and every search reports its end.
+*/
+
+public interface SearchListener {
+
+    // the smallest f the search works on went up, bound is the new value
+    default void boundRaised(SearchStats stats, int bound) {
+    }
+
+    default void progress(SearchStats stats) {
+    }
+
+    // result is null when the search found nothing or was interrupted
+    default void searchFinished(SearchStats stats, SearchResult result) {
+    }
+}
@@ -0,0 +1,37 @@
+package com.demo;
+
+/*
+    Node in the search tree, shared by the best-first engines.
+    Only the parent link and the swapped child are kept, the path is rebuilt from them at the goal.
+    All fields are final so a node can be handed to another thread once it is published.
+*/
+
+class SearchNode {
+
+    final TreeState state;
+    final SearchNode parent; // The node this one was generated from (null for the start)
+    final int swappedChild; // The child index swapped with its parent to reach this state
+    final int gScore; // Actual cost from start to this node
+    final int hScore; // Estimated cost from this node to goal
+    final int fScore; // Total estimated cost (g + h)
+
+    SearchNode(TreeState state, SearchNode parent, int swappedChild, int gScore, int hScore) {
+        this.state = state;
+        this.parent = parent;
+        this.swappedChild = swappedChild;
+        this.gScore = gScore;
+        this.hScore = hScore;
+        this.fScore = gScore + hScore;
+    }
+
+    // Follows the parent links back to the start, gScore is the number of swaps on the way
+    int[] toMoves() {
+        int[] moves = new int[gScore];
+        SearchNode node = this;
+        for (int i = gScore - 1; i >= 0; i--) {
+            moves[i] = node.swappedChild;
+            node = node.parent;
+        }
+        return moves;
+    }
+}
@@ -0,0 +1,58 @@
+package com.demo;
+
+/*
+    Open list and state table that a thread keeps between A* searches.
+    A server solving thousands of small trees would otherwise allocate both and grow the table again for every request,
+    so each thread hands them from one search to the next, cleared.
+    A table that grew past MAX_POOLED_SLOTS is dropped after its search instead, so one large tree
+    does not pin its memory (or make every small search clear a huge array) for the rest of the thread's life.
+*/
+
+public class SearchPool {
+
+    private static final int MAX_POOLED_SLOTS = 1 << 18;
+    private static final ThreadLocal<SearchPool> POOLS = ThreadLocal.withInitial(SearchPool::new);
+
+    private OpenList<SearchNode> openSet;
+    private StateTable stateTable;
+    private boolean inUse;
+
+    private SearchPool() {
+    }
+
+    static SearchPool forCurrentThread() {
+        return POOLS.get();
+    }
+
+    // empty structures for a search of a tree of this size, release() must be called when the search ends
+    OpenList<SearchNode> openList() {
+        if (openSet == null) openSet = new OpenList<>();
+        return openSet;
+    }
+
+    StateTable stateTable(int numberOfNodes) {
+        if (stateTable == null || !stateTable.fits(numberOfNodes)) stateTable = new StateTable(numberOfNodes);
+        return stateTable;
+    }
+
+    /*
+        true if the structures are free for a new search on this thread
+        a search started from a listener callback inside another one gets its own structures instead
+    */
+    boolean acquire() {
+        if (inUse) return false;
+        inUse = true;
+        return true;
+    }
+
+    void release() {
+        inUse = false;
+        if (stateTable != null && stateTable.capacity() > MAX_POOLED_SLOTS) {
+            stateTable = null;
+            openSet = null;
+            return;
+        }
+        if (openSet != null) openSet.clear();
+        if (stateTable != null) stateTable.clear();
+    }
+}
@@ -1,5 +1,6 @@
 package com.demo;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /*
@@ -8,20 +9,90 @@ Result class to hold solution information
 
 public class SearchResult {
 
-    private List<String> swapSequence; // String array to hold readable information about swap details
+    private List<String> swapSequence; // readable swap details, built from the moves the first time they are asked for
+    private int[] moves; // child index of every swap, in order
+    private TreeState initialState; // tree the moves start from, only kept to render the swap details
     private int numberOfSwaps;// total number of swap
     private int nodesExplored;
+    private int nodesGenerated; // child states created, 0 if the engine did not count them
+    private int lowerBound; // proven lower bound on the optimal number of swaps, equal to numberOfSwaps when optimal
+    private int evictions; // nodes dropped to stay inside a memory budget
+    private int regenerations; // nodes generated again after being dropped
+    private SearchStats stats; // metrics of the search that found it, null for a cached solution
 
     public SearchResult(List<String> swapSequence, int numberOfSwaps, int nodesExplored) {
+        this(swapSequence, null, numberOfSwaps, nodesExplored);
+    }
+
+    public SearchResult(List<String> swapSequence, int[] moves, int numberOfSwaps, int nodesExplored) {
+        this(swapSequence, moves, numberOfSwaps, nodesExplored, numberOfSwaps);
+    }
+
+    public SearchResult(List<String> swapSequence, int[] moves, int numberOfSwaps, int nodesExplored, int lowerBound) {
+        this(swapSequence, moves, numberOfSwaps, nodesExplored, 0, lowerBound);
+    }
+
+    public SearchResult(List<String> swapSequence, int[] moves, int numberOfSwaps, int nodesExplored, int nodesGenerated,
+                        int lowerBound) {
         this.swapSequence = swapSequence;
+        this.moves = moves;
         this.numberOfSwaps = numberOfSwaps;
         this.nodesExplored = nodesExplored;
+        this.nodesGenerated = nodesGenerated;
+        this.lowerBound = lowerBound;
+    }
+
+    /*
+        Result made of the moves alone, the readable swap sequence is only built if getSwapSequence() is called.
+        The solver only keeps child indices while searching, so this is the only place the text is formatted.
+    */
+    public static SearchResult fromMoves(TreeState initialState, int[] moves, int nodesExplored) {
+        return fromMoves(initialState, moves, nodesExplored, moves.length);
+    }
+
+    // same, for a solution that is not proven optimal yet: lowerBound is the best bound the search has proven
+    public static SearchResult fromMoves(TreeState initialState, int[] moves, int nodesExplored, int lowerBound) {
+        return fromMoves(initialState, moves, nodesExplored, 0, lowerBound);
+    }
+
+    // same, with the number of child states the search created next to the number it explored
+    public static SearchResult fromMoves(TreeState initialState, int[] moves, int nodesExplored, int nodesGenerated,
+                                         int lowerBound) {
+        SearchResult result = new SearchResult(null, moves, moves.length, nodesExplored, nodesGenerated,
+                Math.min(lowerBound, moves.length));
+        result.initialState = initialState;
+        return result;
     }
 
     public List<String> getSwapSequence() {
+        if (swapSequence == null && moves != null) {
+            swapSequence = describeMoves(initialState, moves);
+        }
+        return swapSequence;
+    }
+
+    // replays the moves from the initial state, naming the two nodes and values of every swap
+    private static List<String> describeMoves(TreeState initialState, int[] moves) {
+        List<String> swapSequence = new ArrayList<>(moves.length);
+        int[] values = initialState.toArray();
+        for (int child : moves) {
+            int parent = (child - 1) / 2;
+            swapSequence.add(String.format(
+                    "Swap node %d (value %d) with node %d (value %d)",
+                    child, values[child],
+                    parent, values[parent])
+            );
+            int childValue = values[child];
+            values[child] = values[parent];
+            values[parent] = childValue;
+        }
         return swapSequence;
     }
 
+    public int[] getMoves() {
+        return moves;
+    }
+
     public int getNumberOfSwaps() {
         return numberOfSwaps;
     }
@@ -30,12 +101,68 @@ public class SearchResult {
         return nodesExplored;
     }
 
+    public int getNodesGenerated() {
+        return nodesGenerated;
+    }
+
+    public int getEvictions() {
+        return evictions;
+    }
+
+    public int getRegenerations() {
+        return regenerations;
+    }
+
+    // set by the memory bounded engine, which is the only one that drops nodes
+    public void setMemoryCounters(int evictions, int regenerations) {
+        this.evictions = evictions;
+        this.regenerations = regenerations;
+    }
+
+    public SearchStats getStats() {
+        return stats;
+    }
+
+    // set by TreeSolver when the search that found this result finishes
+    void setStats(SearchStats stats) {
+        this.stats = stats;
+    }
+
+    public int getLowerBound() {
+        return lowerBound;
+    }
+
+    public boolean isProvenOptimal() {
+        return lowerBound >= numberOfSwaps;
+    }
+
+    // swaps above the proven lower bound, 0 when optimal
+    public int getOptimalityGap() {
+        return numberOfSwaps - lowerBound;
+    }
+
+    // the solution is at most this many times longer than the optimal one
+    public double getBoundRatio() {
+        return lowerBound == 0 ? 1.0 : (double) numberOfSwaps / lowerBound;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("Solution found in ").append(numberOfSwaps).append(" swaps:\n");
         sb.append("Nodes explored: ").append(nodesExplored).append("\n");
+        if (nodesGenerated > 0) {
+            sb.append("Nodes generated: ").append(nodesGenerated).append("\n");
+        }
+        if (evictions > 0) {
+            sb.append("Nodes evicted: ").append(evictions).append(", regenerated: ").append(regenerations).append("\n");
+        }
+        if (!isProvenOptimal()) {
+            sb.append(String.format("Not proven optimal: lower bound %d swaps (gap %d, within %.2fx of optimal)%n",
+                    lowerBound, getOptimalityGap(), getBoundRatio()));
+        }
         sb.append("Swap sequence:\n");
+        List<String> swapSequence = getSwapSequence();
         for (int i = 0; i < swapSequence.size(); i++) {
             sb.append((i + 1)).append(". ").append(swapSequence.get(i)).append("\n");
         }
@@ -0,0 +1,219 @@
+package com.demo;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Metrics of one search: node counts, open and closed set sizes, the f bound over time
+    and, once a solution is proven optimal, how far the heuristic was from the real distance along it.
+
+    Every engine reports its node counts and bound while it runs. The open and closed set sizes come from the engines
+    that keep those sets in memory, and duplicates are counted by A* and the bidirectional engine.
+    Engines count nodes in their own locals and hand them over every PROGRESS_INTERVAL expansions and when they return,
+    so nothing here is called per node. Only a raised bound is reported at once, and that happens a few times a search.
+    Nothing here is shared between threads, the engine owns its stats and listeners only read them.
+*/
+
+public class SearchStats {
+
+    public static final int PROGRESS_INTERVAL = 1 << 16; // expansions between progress reports
+    static final int PROGRESS_MASK = PROGRESS_INTERVAL - 1;
+    public static final int ERROR_BUCKETS = 16; // heuristic errors of 15 swaps or more share the last bucket
+
+    private final SolverMode mode;
+    private final int numberOfNodes;
+    private final SearchListener[] listeners;
+    private final long startNanos = System.nanoTime();
+    private long elapsedNanos = -1; // set when the search finishes
+
+    private long nodesExpanded;
+    private long nodesGenerated;
+    private long duplicates; // children and open entries dropped because their state already had a path as short
+    private int openPeak;
+    private int closedSetSize;
+
+    private int bound = -1;
+    private int[] bounds = new int[8]; // every f bound, in the order they were reached
+    private long[] boundNanos = new long[8]; // time since the start when each one was reached
+    private int boundCount;
+
+    private final int[] heuristicErrors = new int[ERROR_BUCKETS]; // states on an optimal solution path by real distance minus h
+
+    public SearchStats(SolverMode mode, int numberOfNodes, SearchListener... listeners) {
+        this.mode = mode;
+        this.numberOfNodes = numberOfNodes;
+        this.listeners = listeners;
+    }
+
+    // called by the engine every PROGRESS_INTERVAL expansions
+    void progress(long expanded, long generated, int openSize, int closedSize) {
+        progress(expanded, generated, duplicates, openSize, closedSize);
+    }
+
+    // same, from an engine that counts duplicates, openSize may be the largest size since the last report
+    void progress(long expanded, long generated, long duplicateCount, int openSize, int closedSize) {
+        duplicates = duplicateCount;
+        nodesExpanded = expanded;
+        nodesGenerated = generated;
+        if (openSize > openPeak) openPeak = openSize;
+        closedSetSize = closedSize;
+        for (SearchListener listener : listeners) listener.progress(this);
+    }
+
+    void openSize(int size) {
+        if (size > openPeak) openPeak = size;
+    }
+
+    // duplicates found by the whole search, set when the engine returns
+    void duplicates(long count) {
+        duplicates = count;
+    }
+
+    // records the bound if it is higher than the last one, f can go down when the heuristic is not consistent
+    void boundReached(int newBound) {
+        if (newBound <= bound) return;
+        bound = newBound;
+        if (boundCount == bounds.length) {
+            bounds = Arrays.copyOf(bounds, boundCount * 2);
+            boundNanos = Arrays.copyOf(boundNanos, boundCount * 2);
+        }
+        bounds[boundCount] = newBound;
+        boundNanos[boundCount++] = System.nanoTime() - startNanos;
+        for (SearchListener listener : listeners) listener.boundRaised(this, newBound);
+    }
+
+    void closedSetSize(int size) {
+        closedSetSize = size;
+    }
+
+    /*
+        takes the final counts from the result, compares the heuristic with the real distance of every state
+        on the solution path and tells the listeners
+        heuristic is the one the search used, so the errors are the ones it saw; the path length is only the real
+        distance when the result is proven optimal, so other results record no errors
+    */
+    void finish(TreeState initialState, Heuristic heuristic, SearchResult result) {
+        elapsedNanos = System.nanoTime() - startNanos;
+        if (result != null) {
+            nodesExpanded = Math.max(nodesExpanded, result.getNodesExplored());
+            nodesGenerated = Math.max(nodesGenerated, result.getNodesGenerated());
+            if (heuristic != null && result.isProvenOptimal()) recordHeuristicErrors(initialState.withHeuristic(heuristic), result.getMoves());
+            result.setStats(this);
+        }
+        for (SearchListener listener : listeners) listener.searchFinished(this, result);
+    }
+
+    private void recordHeuristicErrors(TreeState state, int[] moves) {
+        for (int step = 0; step <= moves.length; step++) {
+            int error = moves.length - step - state.getHeuristic();
+            heuristicErrors[Math.max(0, Math.min(error, ERROR_BUCKETS - 1))]++;
+            if (step < moves.length) state = state.swap(moves[step]);
+        }
+    }
+
+    // adds up the searches of the regions of one tree, the bounds of separate searches are not comparable and are left out
+    static SearchStats combine(SolverMode mode, int numberOfNodes, SearchStats[] regions) {
+        SearchStats total = new SearchStats(mode, numberOfNodes);
+        long elapsed = 0;
+        for (SearchStats region : regions) {
+            if (region == null) continue;
+            total.nodesExpanded += region.nodesExpanded;
+            total.nodesGenerated += region.nodesGenerated;
+            total.duplicates += region.duplicates;
+            total.openPeak += region.openPeak; // regions may run at the same time, so their peaks can add up
+            total.closedSetSize += region.closedSetSize;
+            for (int i = 0; i < ERROR_BUCKETS; i++) total.heuristicErrors[i] += region.heuristicErrors[i];
+            elapsed = Math.max(elapsed, region.elapsedNanos);
+        }
+        total.elapsedNanos = elapsed;
+        return total;
+    }
+
+    public SolverMode getMode() {
+        return mode;
+    }
+
+    public int getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    public long getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    public long getNodesGenerated() {
+        return nodesGenerated;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    // largest open set seen, 0 for engines that have none
+    public int getOpenPeak() {
+        return openPeak;
+    }
+
+    // states in the closed set (with their g scores) at the last report, 0 for engines that have none
+    public int getClosedSetSize() {
+        return closedSetSize;
+    }
+
+    // time since the start, or the whole search once it finished
+    public long getElapsedNanos() {
+        return elapsedNanos >= 0 ? elapsedNanos : System.nanoTime() - startNanos;
+    }
+
+    public double getExpansionsPerSecond() {
+        long nanos = getElapsedNanos();
+        return nanos == 0 ? 0 : nodesExpanded * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    // current f bound, -1 before the first one
+    public int getBound() {
+        return bound;
+    }
+
+    public int[] getBounds() {
+        return Arrays.copyOf(bounds, boundCount);
+    }
+
+    public long[] getBoundNanos() {
+        return Arrays.copyOf(boundNanos, boundCount);
+    }
+
+    /*
+        number of states on the solution path for every heuristic error (real distance minus h) in swaps
+        empty until a solution is found, the last bucket holds every error of ERROR_BUCKETS - 1 or more
+    */
+    public int[] getHeuristicErrors() {
+        return heuristicErrors.clone();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Nodes expanded: %d, generated: %d, duplicates: %d%n", nodesExpanded, nodesGenerated, duplicates));
+        if (openPeak > 0 || closedSetSize > 0) {
+            sb.append(String.format("Open set peak: %d, closed set: %d%n", openPeak, closedSetSize));
+        }
+        sb.append(String.format("Expansions per second: %.0f%n", getExpansionsPerSecond()));
+        if (boundCount > 0) {
+            sb.append("f bounds:");
+            for (int i = 0; i < boundCount; i++) {
+                sb.append(' ').append(bounds[i]).append(" (").append(TimeUnit.NANOSECONDS.toMillis(boundNanos[i])).append(" ms)");
+            }
+            sb.append(System.lineSeparator());
+        }
+        int last = ERROR_BUCKETS - 1;
+        while (last >= 0 && heuristicErrors[last] == 0) last--;
+        if (last >= 0) {
+            sb.append("Heuristic error along the solution (swaps: states):");
+            for (int i = 0; i <= last; i++) {
+                sb.append(' ').append(i).append(i == ERROR_BUCKETS - 1 ? "+" : "").append(": ").append(heuristicErrors[i]);
+            }
+            sb.append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,306 @@
+package com.demo;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/*
+    Solutions and exact distances kept on disk between runs.
+
+    Entries are keyed by a problem and a state. The problem is the target and the set of swaps the search may use,
+    so the whole tree and each decomposed region are separate problems, told apart by a 64 bit hash of both.
+    Every proven optimal solution stores its moves under its start state, and the exact distance to the target
+    of every state on its path (a suffix of an optimal path is optimal too).
+    A repeated instance is answered from its solution entry without searching, and a search on a problem that has
+    distances gets them through its Heuristic, which uses the exact value wherever it has one.
+
+    The file is read whole at startup and rewritten by save(), entries in least recently used order.
+    Past the byte budget the least recently used entries are dropped, so the file never grows beyond it.
+    A search that gets the distances of a problem may use any of its entries, so distances() only stamps the problem,
+    and an entry that eviction reaches is moved back instead if its problem was used after the entry itself.
+
+    The distance table of a problem is built from its entries the first time a search asks for it,
+    and every stored distance is then added to it in place, see StateTable.hasRoomForOneMore.
+    All methods are synchronized, the regions of one tree are solved in parallel.
+*/
+
+public class SolutionCache {
+
+    public static final String DEFAULT_FILE = "cache/solutions.bin";
+    public static final long DEFAULT_MAX_BYTES = 64L << 20;
+
+    private static final int MAGIC = 0x54534331; // "TSC1"
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES;
+    private static final int NO_MOVES = -1; // distance-only entry
+
+    private final Path file;
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true); // least recently used first
+    private final Map<Long, Set<Key>> keysByProblem = new HashMap<>(); // the same keys, in step with entries
+    private final Map<Long, StateTable> distanceTables = new HashMap<>(); // built by distances(), added to by put()
+    private final Map<Long, Long> problemUses = new HashMap<>(); // clock at the last distances() call of each problem
+    private long clock; // counts uses, an entry or problem with a higher stamp was used later
+    private long bytes = HEADER_BYTES; // size of the file save() would write
+    private boolean dirty; // changed since it was loaded or saved
+
+    private SolutionCache(Path file, long maxBytes) {
+        this.file = file;
+        this.maxBytes = maxBytes;
+    }
+
+    // loads the cache file if there is one, a missing or unreadable file gives an empty cache
+    public static SolutionCache open(Path file, long maxBytes) {
+        if (maxBytes < HEADER_BYTES) {
+            throw new IllegalArgumentException("Cache budget must be at least " + HEADER_BYTES + " bytes, got " + maxBytes);
+        }
+        SolutionCache cache = new SolutionCache(file, maxBytes);
+        if (!Files.isReadable(file)) return cache;
+        try {
+            cache.read(ByteBuffer.wrap(Files.readAllBytes(file)));
+            cache.dirty = false;
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            System.err.println("Could not read solution cache " + file + ", starting empty: " + e.getMessage());
+            cache.entries.clear();
+            cache.keysByProblem.clear();
+            cache.distanceTables.clear();
+            cache.problemUses.clear();
+            cache.bytes = HEADER_BYTES;
+        }
+        return cache;
+    }
+
+    private void read(ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC) throw new IllegalArgumentException("not a solution cache file");
+        long count = buffer.getLong();
+        for (long i = 0; i < count; i++) {
+            long problem = buffer.getLong();
+            byte[] values = new byte[buffer.get() & 0xFF];
+            buffer.get(values);
+            int distance = buffer.getInt();
+            int moveCount = buffer.getInt();
+            byte[] moves = null;
+            if (moveCount != NO_MOVES) {
+                moves = new byte[moveCount];
+                buffer.get(moves);
+            }
+            put(new Key(problem, values), new Entry(distance, moves));
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    // the cached optimal solution from this state, or null
+    public synchronized SearchResult lookup(TreeState initialState, TreeState targetState, int[] swaps) {
+        Entry entry = entries.get(new Key(problemOf(targetState, swaps), toBytes(initialState)));
+        if (entry == null || entry.moves == null) return null;
+        entry.used = ++clock;
+        int[] moves = new int[entry.moves.length];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = entry.moves[i] & 0xFF;
+        }
+        return SearchResult.fromMoves(initialState, moves, 0);
+    }
+
+    /*
+        exact distances known for this problem, or null if there are none
+        the table is shared between the searches of the problem and only the cache adds to it, it must not be modified
+    */
+    public synchronized StateTable distances(TreeState targetState, int[] swaps) {
+        long problem = problemOf(targetState, swaps);
+        Set<Key> keys = keysByProblem.get(problem);
+        if (keys == null) return null;
+        problemUses.put(problem, ++clock); // the search may use every entry of the problem
+
+        StateTable table = distanceTables.get(problem);
+        if (table == null) {
+            table = new StateTable(targetState.getNumberOfNode(), keys.size());
+            for (Key key : keys) {
+                table.updateGScore(new TreeState(toValues(key.values)), entries.get(key).distance);
+            }
+            distanceTables.put(problem, table);
+        }
+        return table;
+    }
+
+    // keeps a proven optimal solution and the distances along its path, anything else is ignored
+    public synchronized void store(TreeState initialState, TreeState targetState, int[] swaps, SearchResult result) {
+        if (result == null || result.getMoves() == null || !result.isProvenOptimal()) return;
+        long problem = problemOf(targetState, swaps);
+        int[] moves = result.getMoves();
+
+        byte[] packedMoves = new byte[moves.length];
+        for (int i = 0; i < moves.length; i++) {
+            packedMoves[i] = (byte) moves[i];
+        }
+        put(new Key(problem, toBytes(initialState)), new Entry(moves.length, packedMoves));
+
+        int[] values = initialState.toArray();
+        for (int step = 0; step < moves.length - 1; step++) {
+            int child = moves[step];
+            int parent = (child - 1) / 2;
+            int childValue = values[child];
+            values[child] = values[parent];
+            values[parent] = childValue;
+
+            Key key = new Key(problem, toBytes(values));
+            Entry known = entries.get(key);
+            if (known == null) put(key, new Entry(moves.length - step - 1, null));
+        }
+    }
+
+    // writes the cache next to its file and moves it in place, so a crash never leaves a half written cache
+    // does nothing if no entry changed since the cache was opened or last saved
+    public synchronized void save() throws IOException {
+        if (!dirty) return;
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, "solutions", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeLong(entries.size());
+            for (Map.Entry<Key, Entry> mapEntry : entries.entrySet()) {
+                Key key = mapEntry.getKey();
+                Entry entry = mapEntry.getValue();
+                out.writeLong(key.problem);
+                out.writeByte(key.values.length);
+                out.write(key.values);
+                out.writeInt(entry.distance);
+                out.writeInt(entry.moves == null ? NO_MOVES : entry.moves.length);
+                if (entry.moves != null) out.write(entry.moves);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        dirty = false;
+    }
+
+    private void put(Key key, Entry entry) {
+        dirty = true;
+        entry.used = ++clock;
+        Entry old = entries.put(key, entry);
+        if (old != null) bytes -= recordBytes(key, old);
+        bytes += recordBytes(key, entry);
+        keysByProblem.computeIfAbsent(key.problem, problem -> new HashSet<>()).add(key);
+        addDistance(key, entry.distance);
+
+        while (bytes > maxBytes && !entries.isEmpty()) {
+            Iterator<Map.Entry<Key, Entry>> leastRecent = entries.entrySet().iterator();
+            Map.Entry<Key, Entry> evicted = leastRecent.next();
+            Key evictedKey = evicted.getKey();
+            Entry evictedEntry = evicted.getValue();
+            long problemUse = problemUses.getOrDefault(evictedKey.problem, 0L);
+            if (problemUse > evictedEntry.used) {
+                evictedEntry.used = problemUse; // a search had it after its last own use, so it gets another round
+                entries.get(evictedKey);
+                continue;
+            }
+            bytes -= recordBytes(evictedKey, evictedEntry);
+            leastRecent.remove();
+
+            Set<Key> keys = keysByProblem.get(evictedKey.problem);
+            keys.remove(evictedKey);
+            if (keys.isEmpty()) {
+                keysByProblem.remove(evictedKey.problem);
+                problemUses.remove(evictedKey.problem);
+            }
+            // the distance stays true, the table is only rebuilt once most of what it holds has left the cache
+            StateTable table = distanceTables.get(evictedKey.problem);
+            if (table != null && table.size() > 2 * (keys.size() + 16)) distanceTables.remove(evictedKey.problem);
+        }
+    }
+
+    // adds a distance to the table of its problem if one was built, a full table is replaced by a larger copy
+    private void addDistance(Key key, int distance) {
+        StateTable table = distanceTables.get(key.problem);
+        if (table == null) return;
+        if (!table.hasRoomForOneMore()) {
+            table = table.copy(table.size() * 2); // searches already holding the old table keep it as it was
+            distanceTables.put(key.problem, table);
+        }
+        table.updateGScore(new TreeState(toValues(key.values)), distance);
+    }
+
+    private static long recordBytes(Key key, Entry entry) {
+        return Long.BYTES + 1 + key.values.length + 2 * Integer.BYTES + (entry.moves == null ? 0 : entry.moves.length);
+    }
+
+    // hash of the target and the swaps, the same problem always gets the same value on every run
+    static long problemOf(TreeState targetState, int[] swaps) {
+        long hash = targetState.getZobristHash();
+        for (int child : swaps) {
+            hash = (hash ^ child) * 0x9E3779B97F4A7C15L;
+            hash ^= hash >>> 29;
+        }
+        return hash;
+    }
+
+    private static byte[] toBytes(TreeState state) {
+        return toBytes(state.toArray());
+    }
+
+    private static byte[] toBytes(int[] values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private static int[] toValues(byte[] bytes) {
+        int[] values = new int[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            values[i] = bytes[i] & 0xFF;
+        }
+        return values;
+    }
+
+    private static final class Key {
+
+        final long problem;
+        final byte[] values; // the state, one byte per position
+        final int hash;
+
+        Key(long problem, byte[] values) {
+            this.problem = problem;
+            this.values = values;
+            this.hash = 31 * Long.hashCode(problem) + Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key other)) return false;
+            return problem == other.problem && Arrays.equals(values, other.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+
+        final int distance; // exact number of swaps left to the target
+        final byte[] moves; // child index of every swap of an optimal solution, null if only the distance is known
+        long used; // clock at its last lookup or store
+
+        Entry(int distance, byte[] moves) {
+            this.distance = distance;
+            this.moves = moves;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.demo;
+
+import java.util.Arrays;
+
+/*
+    Checks that a list of moves turns a tree into its target BST.
+    The moves are replayed in place on one array that is reused for every check, and the result is compared
+    with the target values built once per tree size, so a check allocates nothing and costs O(N + moves).
+    One verifier is meant for one thread, each thread of a batch should have its own.
+*/
+
+public class SolutionVerifier {
+
+    private final int numberOfNodes;
+    private final int[] target; // values of the target BST
+    private final int[] values; // tree being replayed
+
+    public SolutionVerifier(int numberOfNodes) {
+        this.numberOfNodes = numberOfNodes;
+        this.target = TargetBST.targetValues(numberOfNodes);
+        this.values = new int[numberOfNodes];
+    }
+
+    public boolean verify(TreeState initialState, SearchResult result) {
+        return result.getMoves() != null && verify(initialState, result.getMoves());
+    }
+
+    // true if every move is a valid child index and the moves end on the target BST
+    public boolean verify(TreeState initialState, int[] moves) {
+        if (initialState.getNumberOfNode() != numberOfNodes) {
+            throw new IllegalArgumentException("Verifier was built for " + numberOfNodes + " nodes, tree has "
+                    + initialState.getNumberOfNode());
+        }
+        for (int i = 0; i < numberOfNodes; i++) {
+            values[i] = initialState.getValue(i);
+        }
+        for (int child : moves) {
+            if (child <= 0 || child >= numberOfNodes) return false; // the root has no parent to swap with
+            int parent = (child - 1) / 2;
+            int childValue = values[child];
+            values[child] = values[parent];
+            values[parent] = childValue;
+        }
+        return Arrays.equals(values, target);
+    }
+}
@@ -0,0 +1,302 @@
+package com.demo;
+
+import com.demo.util.InputParser;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+    Resident solver: one JVM that keeps solving trees, so small instances do not pay for JVM startup and JIT warm-up.
+
+    Requests are lines in the InputParser format, one tree per line, read from stdin or from loopback TCP connections.
+    Every request gets one JSON line back, in the order the requests came, with the number of the request on its stream:
+        {"id":1,"status":"solved","nodes":7,"swaps":2,"lower_bound":2,"nodes_explored":3,"nodes_generated":12,"time_us":41,"moves":[4,1]}
+        {"id":2,"status":"error","error":"duplicate values found"}
+    moves are the child index of every swap, each one swapped with its parent.
+
+    Lines that have already arrived are handed to the worker pool together, up to MAX_BATCH at a time,
+    so a client streaming thousands of 7 node trees costs one task per batch and not one per tree.
+    Each worker thread reuses its A* open list and state table between requests (see SearchPool),
+    and warmUp() runs the whole request path on generated trees before the first real request comes in.
+*/
+
+public class SolverDaemon implements AutoCloseable {
+
+    private static final int MAX_BATCH = 64; // requests given to a worker in one task
+    private static final int WARM_UP_TREES = 1000; // per tree size
+    private static final int[] WARM_UP_SIZES = {7, 15};
+    private static final int WARM_UP_SWAPS = 6; // random swaps away from the target, about as far as the small inputs are
+    private static final CompletableFuture<List<String>> END = CompletableFuture.completedFuture(null);
+
+    private final SolverMode mode;
+    private final SolverOptions options;
+    private final ExecutorService workers;
+    private ServerSocket server; // set while listen runs, guarded by this
+    private boolean closed; // guarded by this
+
+    public SolverDaemon(SolverMode mode) {
+        this(mode, SolverOptions.DEFAULT);
+    }
+
+    public SolverDaemon(SolverMode mode, SolverOptions options) {
+        this(mode, options, Runtime.getRuntime().availableProcessors());
+    }
+
+    public SolverDaemon(SolverMode mode, SolverOptions options, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1, got " + threads);
+        }
+        this.mode = mode;
+        this.options = options.withParallelRegions(false); // regions one after the other, the workers already use every core
+        AtomicInteger count = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "daemon-solver-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /*
+        solves random trees of the small sizes through the same batches as real requests, so the parser,
+        the search and the reply formatting are compiled before the first client waits on them
+        the trees are not cached, call this before TreeSolver.useCache
+    */
+    public void warmUp() {
+        SplittableRandom random = new SplittableRandom(7421);
+        List<Future<List<String>>> batches = new ArrayList<>();
+        List<Request> batch = new ArrayList<>();
+        for (int size : WARM_UP_SIZES) {
+            for (int i = 0; i < WARM_UP_TREES; i++) {
+                batch.add(new Request(i, randomTree(size, random)));
+                if (batch.size() == MAX_BATCH) {
+                    batches.add(submit(batch));
+                    batch = new ArrayList<>();
+                }
+            }
+        }
+        if (!batch.isEmpty()) batches.add(submit(batch));
+        for (Future<List<String>> done : batches) {
+            try {
+                done.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Warm-up failed", e.getCause());
+            }
+        }
+    }
+
+    // the target BST of this size after a few random swaps, one line in the request format
+    private static String randomTree(int size, SplittableRandom random) {
+        int[] values = TargetBST.targetValues(size);
+        for (int i = 0; i < WARM_UP_SWAPS; i++) {
+            int child = 1 + random.nextInt(size - 1);
+            int parent = (child - 1) / 2;
+            int value = values[child];
+            values[child] = values[parent];
+            values[parent] = value;
+        }
+        StringBuilder line = new StringBuilder();
+        for (int value : values) line.append(value).append(' ');
+        return line.toString();
+    }
+
+    /*
+        answers every request line of in on out until in ends
+        replies are written by a virtual thread in request order, flushed after every batch
+    */
+    public void serve(InputStream in, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        BlockingQueue<Future<List<String>>> replies = new LinkedBlockingQueue<>();
+        Thread replier = Thread.ofVirtual().name("daemon-replies").start(() -> writeReplies(replies, writer));
+
+        try {
+            int id = 0;
+            List<Request> batch = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) batch.add(new Request(++id, line));
+                // keep taking lines that are already here, then hand them over together
+                if (batch.size() < MAX_BATCH && reader.ready()) continue;
+                if (!batch.isEmpty()) {
+                    replies.add(submit(batch));
+                    batch = new ArrayList<>();
+                }
+            }
+            if (!batch.isEmpty()) replies.add(submit(batch));
+        } finally {
+            replies.add(END);
+            try {
+                replier.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /*
+        accepts connections on the loopback address only, each one is served like a stream on its own virtual thread
+        runs until close() or the process is stopped, port 0 picks a free port (printed on stderr)
+        close() shuts the server socket, listen then drops the open connections and returns
+    */
+    public void listen(int port) throws IOException {
+        ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        synchronized (this) {
+            if (closed) {
+                server.close();
+                return;
+            }
+            this.server = server;
+        }
+        ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+        try (server) {
+            System.err.println("Solver daemon listening on " + server.getLocalSocketAddress());
+            while (!Thread.currentThread().isInterrupted()) {
+                Socket socket = server.accept();
+                connections.submit(() -> {
+                    try (socket) {
+                        serve(socket.getInputStream(), socket.getOutputStream());
+                    } catch (IOException e) {
+                        System.err.println("Connection " + socket.getRemoteSocketAddress() + " failed: " + e.getMessage());
+                    }
+                });
+            }
+        } catch (SocketException e) {
+            // accept fails this way once close() has shut the socket, that is the normal way out
+            if (!server.isClosed()) throw e;
+        } finally {
+            connections.shutdownNow(); // interrupting a virtual thread closes the socket it is blocked on
+        }
+    }
+
+    private Future<List<String>> submit(List<Request> batch) {
+        return workers.submit(() -> solveBatch(batch));
+    }
+
+    // runs on a worker thread, one reply line per request
+    private List<String> solveBatch(List<Request> batch) {
+        List<String> replies = new ArrayList<>(batch.size());
+        for (Request request : batch) {
+            replies.add(solve(request));
+        }
+        return replies;
+    }
+
+    private String solve(Request request) {
+        long startTime = System.nanoTime();
+        StringBuilder reply = new StringBuilder("{\"id\":").append(request.id);
+        try {
+            TreeState initialState = new TreeState(InputParser.parseValues(request.line));
+            SearchResult result = TreeSolver.solve(initialState, mode, options);
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime);
+            if (result == null) {
+                return reply.append(",\"status\":\"no_solution\",\"nodes\":").append(initialState.getNumberOfNode())
+                        .append('}').toString();
+            }
+            reply.append(",\"status\":\"solved\",\"nodes\":").append(initialState.getNumberOfNode())
+                    .append(",\"swaps\":").append(result.getNumberOfSwaps())
+                    .append(",\"lower_bound\":").append(result.getLowerBound())
+                    .append(",\"nodes_explored\":").append(result.getNodesExplored())
+                    .append(",\"nodes_generated\":").append(result.getNodesGenerated())
+                    .append(",\"time_us\":").append(micros)
+                    .append(",\"moves\":[");
+            int[] moves = result.getMoves();
+            for (int i = 0; i < moves.length; i++) {
+                if (i > 0) reply.append(',');
+                reply.append(moves[i]);
+            }
+            return reply.append("]}").toString();
+        } catch (IllegalArgumentException e) {
+            return error(request.id, String.valueOf(e.getMessage()));
+        } catch (RuntimeException | OutOfMemoryError e) {
+            // a failed solve (an engine's I/O, a full heap) is that request's error, the stream goes on
+            return error(request.id, e.toString());
+        }
+    }
+
+    // started over from the id, the failure may have come with a reply half written
+    private static String error(int id, String message) {
+        return "{\"id\":" + id + ",\"status\":\"error\",\"error\":" + BatchSolver.quoteJson(message) + "}";
+    }
+
+    /*
+        writes the batches in the order they were read, whatever order the workers finish them in
+        every request already answers its own failures, a batch that still fails is reported on stderr and skipped
+    */
+    private static void writeReplies(BlockingQueue<Future<List<String>>> replies, Writer writer) {
+        try {
+            while (true) {
+                List<String> batch;
+                try {
+                    batch = replies.take().get();
+                } catch (ExecutionException e) {
+                    System.err.println("Solver batch failed: " + e.getCause());
+                    continue;
+                }
+                if (batch == null) break;
+                for (String reply : batch) {
+                    writer.write(reply);
+                    writer.write('\n');
+                }
+                writer.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write replies", e);
+        }
+    }
+
+    // stops listen and the workers, requests still running get no reply
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            if (server != null) {
+                try {
+                    server.close();
+                } catch (IOException e) {
+                    System.err.println("Cannot close the server socket: " + e.getMessage());
+                }
+            }
+        }
+        workers.shutdownNow();
+    }
+
+    private static class Request {
+
+        final int id; // number of the request on its stream, from 1
+        final String line;
+
+        Request(int id, String line) {
+            this.id = id;
+            this.line = line;
+        }
+    }
+}
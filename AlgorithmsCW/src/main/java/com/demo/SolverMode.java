@@ -0,0 +1,18 @@
+package com.demo;
+
+/*
+    Search engines that TreeSolver.solve can run
+*/
+
+public enum SolverMode {
+
+    A_STAR, // best-first search, keeps every generated state in memory
+    IDA_STAR, // iterative deepening on the f-bound, memory grows only with the solution depth
+    BIDIRECTIONAL, // A* from the input and from the target at the same time, meeting in the middle
+    PARALLEL, // hash distributed A* with one worker per available core
+    ANYTIME, // weighted A* that returns a solution within 2x of optimal fast, then improves it until a deadline
+    MEMORY_BOUNDED, // SMA* style A* that drops its worst nodes instead of growing past a quarter of the heap
+    EXTERNAL, // breadth-first search under an f bound with its layers in sorted files on disk, for closed sets larger than RAM
+    BRANCH_AND_BOUND // depth-first search under a greedy solution that it keeps shortening, optimal once it runs out
+
+}
@@ -0,0 +1,95 @@
+package com.demo;
+
+/*
+    Settings of a TreeSolver.solve call that are not the engine itself, so batch, stream, server and async solves
+    can all be given the same ones from the command line.
+
+    decompose: split the tree into its disordered regions and search each one alone (see Decomposition).
+    It is off by default: a decomposed solution is the shortest one that keeps every swap inside its region,
+    which is not proven to be the shortest one overall, so such results are never reported as proven optimal.
+    parallelRegions: solve those regions in parallel instead of one after the other on the calling thread.
+    memoryBudgetBytes: what MEMORY_BOUNDED may keep in search nodes, 0 for a quarter of the heap.
+    timeLimitMillis: how long ANYTIME and BRANCH_AND_BOUND keep improving their solution before returning it.
+
+    Instances are immutable, every with method returns a changed copy.
+*/
+
+public class SolverOptions {
+
+    public static final long DEFAULT_TIME_LIMIT_MILLIS = AnytimeSolver.DEFAULT_TIME_LIMIT_MILLIS;
+    public static final SolverOptions DEFAULT = new SolverOptions(false, true, 0, DEFAULT_TIME_LIMIT_MILLIS);
+
+    static final String DECOMPOSE_PROPERTY = "solver.decompose";
+    static final String MEMORY_PROPERTY = "solver.memory.mb";
+    static final String TIME_LIMIT_PROPERTY = "solver.time.limit.ms";
+
+    private final boolean decompose;
+    private final boolean parallelRegions;
+    private final long memoryBudgetBytes;
+    private final long timeLimitMillis;
+
+    private SolverOptions(boolean decompose, boolean parallelRegions, long memoryBudgetBytes, long timeLimitMillis) {
+        this.decompose = decompose;
+        this.parallelRegions = parallelRegions;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    // the defaults, changed by -Dsolver.decompose=true, -Dsolver.memory.mb=<megabytes> and -Dsolver.time.limit.ms=<ms>
+    public static SolverOptions fromSystemProperties() {
+        return DEFAULT.withDecompose(Boolean.getBoolean(DECOMPOSE_PROPERTY))
+                .withMemoryBudgetBytes(Long.getLong(MEMORY_PROPERTY, 0) << 20)
+                .withTimeLimitMillis(Long.getLong(TIME_LIMIT_PROPERTY, DEFAULT_TIME_LIMIT_MILLIS));
+    }
+
+    public SolverOptions withDecompose(boolean decompose) {
+        return new SolverOptions(decompose, parallelRegions, memoryBudgetBytes, timeLimitMillis);
+    }
+
+    public SolverOptions withParallelRegions(boolean parallelRegions) {
+        return new SolverOptions(decompose, parallelRegions, memoryBudgetBytes, timeLimitMillis);
+    }
+
+    public SolverOptions withMemoryBudgetBytes(long memoryBudgetBytes) {
+        if (memoryBudgetBytes < 0) {
+            throw new IllegalArgumentException("Memory budget must not be negative, got " + memoryBudgetBytes);
+        }
+        return new SolverOptions(decompose, parallelRegions, memoryBudgetBytes, timeLimitMillis);
+    }
+
+    public SolverOptions withTimeLimitMillis(long timeLimitMillis) {
+        if (timeLimitMillis < 1) {
+            throw new IllegalArgumentException("Time limit must be at least 1 ms, got " + timeLimitMillis);
+        }
+        return new SolverOptions(decompose, parallelRegions, memoryBudgetBytes, timeLimitMillis);
+    }
+
+    public boolean isDecompose() {
+        return decompose;
+    }
+
+    public boolean isParallelRegions() {
+        return parallelRegions;
+    }
+
+    public long getMemoryBudgetBytes() {
+        return memoryBudgetBytes;
+    }
+
+    // search nodes MEMORY_BOUNDED may keep for a tree of this size
+    public long memoryBudgetNodes(int numberOfNodes) {
+        if (memoryBudgetBytes == 0) return MemoryBoundedSolver.defaultBudget(numberOfNodes);
+        return MemoryBoundedSolver.nodesForBytes(memoryBudgetBytes, numberOfNodes);
+    }
+
+    public long getTimeLimitMillis() {
+        return timeLimitMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "decompose=" + decompose + ", parallelRegions=" + parallelRegions
+                + ", memoryBudgetBytes=" + (memoryBudgetBytes == 0 ? "default" : memoryBudgetBytes)
+                + ", timeLimitMillis=" + timeLimitMillis;
+    }
+}
@@ -0,0 +1,210 @@
+package com.demo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+    File of fixed-width records made of longs, used by the external search for its layers and sorted runs.
+    A record is the packed words of a TreeState followed by one long of data, and files are sorted on the packed words,
+    so duplicates are found by merging files side by side and a single state by binary search.
+
+    Files are read through memory-mapped windows, so the page cache holds what the search touches instead of the heap,
+    and a file larger than one mapping (2 GB) is simply read a window at a time.
+    A layer small enough to stay on the heap is a long[] with the same layout, read through the same methods.
+*/
+
+public class SpillFile implements Closeable {
+
+    private static final long WINDOW_BYTES = 1L << 26; // 64 MB mapped at a time
+
+    private final FileChannel channel;
+    private final int width; // longs per record
+    private final int keyWords; // leading longs that form the sort key
+    private final long records;
+    private final long recordsPerWindow;
+    private final long[] data; // the records when they are on the heap, null for a file
+    private MappedByteBuffer window;
+    private long windowStart; // first record in the mapped window
+
+    public SpillFile(Path path, int keyWords) {
+        this.keyWords = keyWords;
+        this.width = keyWords + 1;
+        this.recordsPerWindow = WINDOW_BYTES / (width * Long.BYTES);
+        try {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.records = channel.size() / (width * Long.BYTES);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open spill file " + path, e);
+        }
+        this.data = null;
+    }
+
+    // records already sorted in a long[], nothing is opened
+    public SpillFile(long[] data, int keyWords) {
+        this.keyWords = keyWords;
+        this.width = keyWords + 1;
+        this.recordsPerWindow = 0;
+        this.channel = null;
+        this.records = data.length / width;
+        this.data = data;
+    }
+
+    public long size() {
+        return records;
+    }
+
+    // copies the record at this index into the first width longs of record
+    public void read(long index, long[] record) {
+        if (data != null) {
+            System.arraycopy(data, (int) index * width, record, 0, width);
+            return;
+        }
+        if (window == null || index < windowStart || index >= windowStart + recordsPerWindow) map(index);
+        int offset = (int) (index - windowStart) * width * Long.BYTES;
+        for (int i = 0; i < width; i++) {
+            record[i] = window.getLong(offset + i * Long.BYTES);
+        }
+    }
+
+    // index of the record whose key equals the given packed words, or -1, the record is left in record
+    public long find(long[] key, long[] record) {
+        long low = 0;
+        long high = records - 1;
+        while (low <= high) {
+            long middle = (low + high) >>> 1;
+            read(middle, record);
+            int order = compareKeys(record, 0, key, 0, keyWords);
+            if (order == 0) return middle;
+            if (order < 0) low = middle + 1;
+            else high = middle - 1;
+        }
+        return -1;
+    }
+
+    private void map(long index) {
+        windowStart = index - index % recordsPerWindow;
+        long bytes = Math.min(recordsPerWindow, records - windowStart) * width * Long.BYTES;
+        try {
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart * width * Long.BYTES, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map spill file", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        window = null;
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close spill file", e);
+        }
+    }
+
+    // orders records by their key words, the same order the files are sorted in
+    static int compareKeys(long[] a, int offsetA, long[] b, int offsetB, int keyWords) {
+        for (int i = 0; i < keyWords; i++) {
+            if (a[offsetA + i] != b[offsetB + i]) return Long.compare(a[offsetA + i], b[offsetB + i]);
+        }
+        return 0;
+    }
+
+    /*
+        sorts count records of the given width in place, on their first keyWords longs
+        quicksort on whole records, so sorting a full buffer needs no index array or boxing
+    */
+    static void sort(long[] data, int count, int width, int keyWords) {
+        long[] pivot = new long[width];
+        long[] scratch = new long[width];
+        sort(data, 0, count - 1, width, keyWords, pivot, scratch);
+    }
+
+    private static void sort(long[] data, int low, int high, int width, int keyWords, long[] pivot, long[] scratch) {
+        while (high - low > 16) {
+            int middle = (low + high) >>> 1;
+            System.arraycopy(data, middle * width, pivot, 0, width);
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (compareKeys(data, i * width, pivot, 0, keyWords) < 0) i++;
+                while (compareKeys(data, j * width, pivot, 0, keyWords) > 0) j--;
+                if (i <= j) swap(data, i++, j--, width, scratch);
+            }
+            // recurse into the smaller half and loop on the larger one, so the stack stays O(log n)
+            if (j - low < high - i) {
+                sort(data, low, j, width, keyWords, pivot, scratch);
+                low = i;
+            } else {
+                sort(data, i, high, width, keyWords, pivot, scratch);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) { // insertion sort for the short ranges left over
+            for (int j = i; j > low && compareKeys(data, (j - 1) * width, data, j * width, keyWords) > 0; j--) {
+                swap(data, j - 1, j, width, scratch);
+            }
+        }
+    }
+
+    private static void swap(long[] data, int a, int b, int width, long[] scratch) {
+        System.arraycopy(data, a * width, scratch, 0, width);
+        System.arraycopy(data, b * width, data, a * width, width);
+        System.arraycopy(scratch, 0, data, b * width, width);
+    }
+
+    // appends records to a file through one direct buffer, records must be written in the order the file should have
+    static class Writer implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        private long records;
+
+        Writer(Path path) {
+            try {
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot create spill file " + path, e);
+            }
+        }
+
+        void write(long[] data, int offset, int width) {
+            if (buffer.remaining() < width * Long.BYTES) flush();
+            for (int i = 0; i < width; i++) {
+                buffer.putLong(data[offset + i]);
+            }
+            records++;
+        }
+
+        long records() {
+            return records;
+        }
+
+        private void flush() {
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) channel.write(buffer);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write spill file", e);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() {
+            flush();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot close spill file", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.demo;
+
+import java.util.Arrays;
+
+/*
+    Open addressing hash table that replaces the HashSet<TreeState> closed set and the HashMap<TreeState,Integer> gScore map.
+    Keys are stored as the packed words of the TreeState in one flat long array, and the g-score and closed flag share one int,
+    so there is no boxing and no object per entry.
+*/
+
+public class StateTable {
+
+    private static final int EMPTY = 0; // entries hold g + 1, so 0 can mark an unused slot
+    private static final int CLOSED = 0x80000000; // top bit of an entry marks an explored state
+    private static final int DEFAULT_CAPACITY = 1 << 12;
+
+    private final int words; // number of longs per key
+    private long[] keys;
+    private int[] hashes;
+    private int[] entries;
+    private int mask;
+    private int size;
+
+    public StateTable(int numberOfNodes) {
+        this(numberOfNodes, DEFAULT_CAPACITY);
+    }
+
+    public StateTable(int numberOfNodes, int expectedStates) {
+        this.words = TreeState.wordCount(numberOfNodes);
+        int capacity = Integer.highestOneBit(Math.max(16, expectedStates * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity * words];
+        hashes = new int[capacity];
+        entries = new int[capacity];
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // forgets every state but keeps the arrays, so the table can serve another search of the same tree size
+    public void clear() {
+        Arrays.fill(entries, EMPTY);
+        size = 0;
+    }
+
+    // true if the keys have room for trees of this size
+    boolean fits(int numberOfNodes) {
+        return words == TreeState.wordCount(numberOfNodes);
+    }
+
+    // number of slots, the table grows once three quarters of them are used
+    int capacity() {
+        return mask + 1;
+    }
+
+    // memory held by the three arrays, used for the bytes-per-state figure
+    public long footprintBytes() {
+        return (long) keys.length * Long.BYTES + (long) hashes.length * Integer.BYTES + (long) entries.length * Integer.BYTES;
+    }
+
+    // best known cost from the start to this state, or Integer.MAX_VALUE if it was never seen
+    public int getGScore(TreeState state) {
+        int slot = find(state);
+        return slot < 0 ? Integer.MAX_VALUE : (entries[slot] & ~CLOSED) - 1;
+    }
+
+    public boolean isClosed(TreeState state) {
+        int slot = find(state);
+        return slot >= 0 && (entries[slot] & CLOSED) != 0;
+    }
+
+    /*
+        records a new g-score for the state if it is better than the stored one
+        returns false if the state is already explored or the old path was as short
+    */
+    public boolean updateGScore(TreeState state, int gScore) {
+        int slot = find(state);
+        if (slot < 0) {
+            insert(~slot, state, gScore + 1);
+            return true;
+        }
+        int entry = entries[slot];
+        if ((entry & CLOSED) != 0 || gScore + 1 >= entry) return false;
+        entries[slot] = gScore + 1;
+        return true;
+    }
+
+    /*
+        records a new g-score for the state if it is better than the stored one, even if the state was already explored
+        the state is opened again in that case, used by searches that can explore a state before its best path is known
+    */
+    public boolean lowerGScore(TreeState state, int gScore) {
+        int slot = find(state);
+        if (slot < 0) {
+            insert(~slot, state, gScore + 1);
+            return true;
+        }
+        if (gScore + 1 >= (entries[slot] & ~CLOSED)) return false;
+        entries[slot] = gScore + 1;
+        return true;
+    }
+
+    /*
+        marks the state as explored, keeping its g-score
+        returns false if it was already explored
+    */
+    public boolean close(TreeState state, int gScore) {
+        int slot = find(state);
+        if (slot < 0) {
+            insert(~slot, state, (gScore + 1) | CLOSED);
+            return true;
+        }
+        if ((entries[slot] & CLOSED) != 0) return false;
+        entries[slot] |= CLOSED;
+        return true;
+    }
+
+    // returns the slot holding the state, or ~slot of the empty slot where it would go
+    private int find(TreeState state) {
+        long[] key = state.getPackedValues();
+        int hash = state.hashCode();
+        int slot = spread(hash) & mask;
+        while (entries[slot] != EMPTY) {
+            if (hashes[slot] == hash && keyEquals(slot, key)) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return ~slot;
+    }
+
+    private boolean keyEquals(int slot, long[] key) {
+        int offset = slot * words;
+        for (int i = 0; i < words; i++) {
+            if (keys[offset + i] != key[i]) return false;
+        }
+        return true;
+    }
+
+    private void insert(int slot, TreeState state, int entry) {
+        System.arraycopy(state.getPackedValues(), 0, keys, slot * words, words);
+        hashes[slot] = state.hashCode();
+        entries[slot] = entry;
+        size++;
+        if (size * 4L >= (mask + 1) * 3L) grow(); // keep the load factor under 0.75
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        int[] oldEntries = entries;
+        int oldSize = size;
+
+        allocate((mask + 1) * 2);
+        copyFrom(oldKeys, oldHashes, oldEntries);
+        size = oldSize;
+    }
+
+    private void copyFrom(long[] oldKeys, int[] oldHashes, int[] oldEntries) {
+        for (int old = 0; old < oldEntries.length; old++) {
+            if (oldEntries[old] == EMPTY) continue;
+            int slot = spread(oldHashes[old]) & mask;
+            while (entries[slot] != EMPTY) slot = (slot + 1) & mask;
+            System.arraycopy(oldKeys, old * words, keys, slot * words, words);
+            hashes[slot] = oldHashes[old];
+            entries[slot] = oldEntries[old];
+        }
+    }
+
+    /*
+        true if one more state can be added without the table growing
+        SolutionCache adds to tables that searches are reading, which is only safe while the arrays stay the same:
+        a state is written key first and entry last, so a reader that sees it half written only misses it
+    */
+    boolean hasRoomForOneMore() {
+        return (size + 1) * 4L < (mask + 1) * 3L;
+    }
+
+    // a copy with room for at least expectedStates, the states are copied as they are
+    StateTable copy(int expectedStates) {
+        StateTable copy = new StateTable(words * Long.BYTES, Math.max(expectedStates, size)); // one byte per value
+        copy.copyFrom(keys, hashes, entries);
+        copy.size = size;
+        return copy;
+    }
+
+    // mixes the bits so states that differ only in high bytes still spread over the table
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -14,8 +14,14 @@ public class TargetBST {
         The target has the same structure but values arranged as a BST
     */
     public static TreeState createTargetBST(TreeState initialState) {
+        return new TreeState(targetValues(initialState.getNumberOfNode()));
+    }
+
+    /*
+        Values of the target BST for a tree of n nodes, the target only depends on the size
+    */
+    public static int[] targetValues(int n) {
 
-        int n = initialState.getNumberOfNode();
         int[] targetValues = new int[n]; // creating array size of initial array size to hold new status
 
         // Get sorted values (1 to n)
@@ -27,7 +33,7 @@ public class TargetBST {
         // Fill the tree in BST order using in-order traversal
         fillBSTInOrder(targetValues, sortedValues, 0, 0, n - 1);
 
-        return new TreeState(targetValues);
+        return targetValues;
     }
 
     /*
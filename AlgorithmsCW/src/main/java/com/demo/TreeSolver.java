@@ -1,141 +1,292 @@
 package com.demo;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
 
 import static com.demo.TargetBST.createTargetBST;
 
 public class TreeSolver {
 
-    // Heuristic #1: Count how many nodes are not in their target positions.
-    // This gives a rough estimate of how far we are from the solution.
-    private static int calculateHeuristic(TreeState current, TreeState target) {
-        int misplaced = 0;
-        for (int i = 0; i < current.getNumberOfNode(); i++) {
-            if (current.getValue(i) != target.getValue(i)) misplaced++;
-        }
-        return misplaced;
+    private static volatile SolutionCache cache; // solutions and exact distances from earlier runs, null when not used
+    private static final List<SearchListener> listeners = new CopyOnWriteArrayList<>(List.of(new JfrSearchListener()));
+
+    /*
+        Makes every solve look up and store proven optimal solutions in the cache, null turns that off.
+        The caller owns the cache and saves it when it is done.
+    */
+    public static void useCache(SolutionCache solutionCache) {
+        cache = solutionCache;
     }
 
-    // Heuristic #2: A more refined estimate using index distance.
-    // Measures how far each value is from its goal position, on average.
-    private static int calculateManhattanHeuristic(TreeState current, TreeState target) {
-        int total = 0, n = current.getNumberOfNode();
-        Map<Integer, Integer> currentPos = new HashMap<>();
-        Map<Integer, Integer> targetPos = new HashMap<>();
+    // every search from now on reports its metrics to the listener as well, JFR events are published by default
+    public static void addListener(SearchListener listener) {
+        listeners.add(listener);
+    }
 
-        // Store positions of each value in both current and target trees
-        for (int i = 0; i < n; i++) {
-            currentPos.put(current.getValue(i), i);
-            targetPos.put(target.getValue(i), i);
-        }
+    public static void removeListener(SearchListener listener) {
+        listeners.remove(listener);
+    }
 
-        // Add up the absolute position differences
-        for (int val = 1; val <= n; val++) {
-            total += Math.abs(currentPos.get(val) - targetPos.get(val));
-        }
+    // Main method to solve the tree using the A* search algorithm
+    public static SearchResult solve(TreeState initialState) {
+        return solve(initialState, SolverMode.A_STAR);
+    }
 
-        return total / 2; // Approximate number of swaps (since each swap affects two values)
+    // Solves the tree with the chosen search engine, as one problem over the whole tree
+    public static SearchResult solve(TreeState initialState, SolverMode mode) {
+        return solve(initialState, mode, SolverOptions.DEFAULT);
     }
 
-    // Combined heuristic: Use the more pessimistic (higher) value to stay admissible for A*
-    private static int combinedHeuristic(TreeState current, TreeState target) {
-        return Math.max(
-                calculateHeuristic(current, target),
-                calculateManhattanHeuristic(current, target)
-        );
+    /*
+        Solves the tree with the chosen search engine, every engine but ANYTIME and BRANCH_AND_BOUND returns an optimal solution
+        (those two do once they finish before their deadline).
+        With decompose set, each disordered region is searched on its own (see Decomposition), in parallel when there are several,
+        and the solution is the shortest one that keeps every swap inside its region.
+        That is not proven to be the shortest one overall, so its lower bound is the heuristic of the whole tree.
+        Without it the whole tree is searched as one problem.
+    */
+    public static SearchResult solve(TreeState initialState, SolverMode mode, boolean decompose) {
+        return solve(initialState, mode, SolverOptions.DEFAULT.withDecompose(decompose));
     }
 
-    // Main method to solve the tree using the A* search algorithm
-    public static SearchResult solve(TreeState initialState) {
+    /*
+        Same as above, with parallelRegions off the regions are solved one after the other on the calling thread.
+        Callers that already run one solve per core use that, it also lets an interrupt reach every region's search.
+    */
+    public static SearchResult solve(TreeState initialState, SolverMode mode, boolean decompose, boolean parallelRegions) {
+        return solve(initialState, mode, decompose, parallelRegions, null);
+    }
+
+    // same, also reporting the searches of this solve alone to listener (if not null), next to the registered listeners
+    public static SearchResult solve(TreeState initialState, SolverMode mode, boolean decompose, boolean parallelRegions,
+                                     SearchListener listener) {
+        return solve(initialState, mode,
+                SolverOptions.DEFAULT.withDecompose(decompose).withParallelRegions(parallelRegions), listener);
+    }
+
+    public static SearchResult solve(TreeState initialState, SolverMode mode, SolverOptions options) {
+        return solve(initialState, mode, options, null);
+    }
+
+    // the same solve with every setting but the engine taken from options, see SolverOptions
+    public static SearchResult solve(TreeState initialState, SolverMode mode, SolverOptions options, SearchListener listener) {
         TreeState targetState = createTargetBST(initialState); // Build the ideal target BST
 
         // If the current state is already sorted, return
         if (initialState.equals(targetState)) {
-            return new SearchResult(new ArrayList<>(), 0, 1);
+            return SearchResult.fromMoves(initialState, new int[0], 1);
         }
 
-        // Open set stores nodes to explore
-        PriorityQueue<SearchNode> openSet = new PriorityQueue<>();
-        Set<TreeState> closedSet = new HashSet<>(); // To avoid re-exploring visited states
-        Map<TreeState, Integer> gScoreMap = new HashMap<>(); // Cost from start to a given state
+        if (options.isDecompose()) {
+            List<int[]> regions = Decomposition.regions(initialState, targetState);
+            return solveRegions(initialState, targetState, regions, mode, options, listener);
+        }
+        int[] swaps = Decomposition.allSwaps(initialState.getNumberOfNode());
+        return solveWhole(initialState, targetState, swaps, mode, options, listener);
+    }
 
-        // Start from the initial state
-        int initialH = combinedHeuristic(initialState, targetState);
-        openSet.offer(new SearchNode(initialState, new ArrayList<>(), 0, initialH));
-        gScoreMap.put(initialState, 0);
+    private static SearchResult solveRegions(TreeState initialState, TreeState targetState, List<int[]> regions,
+                                             SolverMode mode, SolverOptions options, SearchListener listener) {
+        // the parallel engine already uses every core, so its regions are solved one after the other
+        IntStream indices = IntStream.range(0, regions.size());
+        if (options.isParallelRegions() && mode != SolverMode.PARALLEL) indices = indices.parallel();
+        // region results are only optimal inside their region, so they are neither looked up in nor stored to the cache
+        SearchResult[] results = indices.mapToObj(i -> {
+            int[] swaps = regions.get(i);
+            return search(initialState, Decomposition.regionTarget(initialState, targetState, swaps), swaps, mode,
+                    options, null, listener, true);
+        }).toArray(SearchResult[]::new);
 
+        // regions share no position, so their moves can simply be put one after the other
+        int totalMoves = 0;
         int nodesExplored = 0;
+        int nodesGenerated = 0;
+        int evictions = 0;
+        int regenerations = 0;
+        SearchStats[] stats = new SearchStats[results.length];
+        for (int i = 0; i < results.length; i++) {
+            SearchResult result = results[i];
+            if (result == null) return null;
+            stats[i] = result.getStats();
+            totalMoves += result.getNumberOfSwaps();
+            nodesExplored += result.getNodesExplored();
+            nodesGenerated += result.getNodesGenerated();
+            evictions += result.getEvictions();
+            regenerations += result.getRegenerations();
+        }
+        int[] moves = new int[totalMoves];
+        int offset = 0;
+        for (SearchResult result : results) {
+            System.arraycopy(result.getMoves(), 0, moves, offset, result.getNumberOfSwaps());
+            offset += result.getNumberOfSwaps();
+        }
+        // the sum of the region bounds only holds for solutions that stay in their regions, the whole tree heuristic always holds
+        int lowerBound = initialState.withHeuristic(new Heuristic(targetState)).getHeuristic();
+        SearchResult merged = SearchResult.fromMoves(initialState, moves, nodesExplored, nodesGenerated, lowerBound);
+        merged.setMemoryCounters(evictions, regenerations);
+        merged.setStats(SearchStats.combine(mode, initialState.getNumberOfNode(), stats));
+        return merged;
+    }
+
+    // Searches the whole tree with every swap, through the cache when there is one
+    private static SearchResult solveWhole(TreeState initialState, TreeState targetState, int[] swaps, SolverMode mode,
+                                           SolverOptions options, SearchListener listener) {
+        SolutionCache solutionCache = cache;
+        if (solutionCache == null) return search(initialState, targetState, swaps, mode, options, null, listener, false);
+
+        SearchResult cached = solutionCache.lookup(initialState, targetState, swaps);
+        if (cached != null) return cached;
+        SearchResult result = search(initialState, targetState, swaps, mode, options,
+                solutionCache.distances(targetState, swaps), listener, false);
+        solutionCache.store(initialState, targetState, swaps, result);
+        return result;
+    }
 
+    /*
+        Searches from the input tree to the target, only swapping the given child indices with their parents
+        restricted says the swaps are a region's, so a result is not the true distance of the whole tree
+    */
+    private static SearchResult search(TreeState initialState, TreeState targetState, int[] swaps, SolverMode mode,
+                                       SolverOptions options, StateTable exactDistances, SearchListener listener,
+                                       boolean restricted) {
 
-        while (!openSet.isEmpty()) {
-            SearchNode current = openSet.poll();
+        // Target tables are built once, every state then carries its own heuristic value
+        Heuristic heuristic = new Heuristic(targetState);
+        // bidirectional search closes states for good, so it needs a consistent heuristic and gets no exact distances
+        // (IDA* works on raw arrays and never looks them up either)
+        if (exactDistances != null && mode != SolverMode.BIDIRECTIONAL) heuristic.useExactDistances(exactDistances);
+
+        List<SearchListener> observers = new ArrayList<>(listeners);
+        if (listener != null) observers.add(listener);
+        SearchStats stats = new SearchStats(mode, initialState.getNumberOfNode(), observers.toArray(new SearchListener[0]));
+        SearchResult result = runEngine(initialState, targetState, heuristic, swaps, mode, options, stats);
+        stats.finish(initialState, restricted ? null : heuristic, result); // no heuristic, no error histogram
+        return result;
+    }
+
+    private static SearchResult runEngine(TreeState initialState, TreeState targetState, Heuristic heuristic, int[] swaps,
+                                          SolverMode mode, SolverOptions options, SearchStats stats) {
+        switch (mode) {
+            case IDA_STAR:
+                return IdaStarSolver.solve(initialState, heuristic, swaps, stats);
+            case BIDIRECTIONAL:
+                return BidirectionalSolver.solve(initialState, targetState, heuristic, swaps, stats);
+            case PARALLEL:
+                return ParallelSolver.solve(initialState, targetState, heuristic, swaps, Runtime.getRuntime().availableProcessors(),
+                        stats);
+            case ANYTIME:
+                return AnytimeSolver.solve(initialState, targetState, heuristic, swaps, AnytimeSolver.DEFAULT_WEIGHT,
+                        options.getTimeLimitMillis(), null, stats);
+            case MEMORY_BOUNDED:
+                return MemoryBoundedSolver.solve(initialState, targetState, heuristic, swaps,
+                        options.memoryBudgetNodes(initialState.getNumberOfNode()), stats);
+            case EXTERNAL:
+                return ExternalSolver.solve(initialState, targetState, heuristic, swaps, stats);
+            case BRANCH_AND_BOUND:
+                return BranchAndBoundSolver.solve(initialState, targetState, heuristic, swaps,
+                        options.getTimeLimitMillis(), null, stats);
+            case A_STAR:
+            default:
+                return solveAStar(initialState, targetState, heuristic, swaps, stats);
+        }
+    }
+
+    private static SearchResult solveAStar(TreeState initialState, TreeState targetState, Heuristic heuristic, int[] swaps,
+                                           SearchStats stats) {
+        // the open list and state table of the previous search on this thread are reused, see SearchPool
+        SearchPool pool = SearchPool.forCurrentThread();
+        if (!pool.acquire()) {
+            return solveAStar(initialState, targetState, heuristic, swaps, stats,
+                    new OpenList<>(), new StateTable(initialState.getNumberOfNode()));
+        }
+        try {
+            return solveAStar(initialState, targetState, heuristic, swaps, stats,
+                    pool.openList(), pool.stateTable(initialState.getNumberOfNode()));
+        } finally {
+            pool.release();
+        }
+    }
+
+    /*
+        openSet stores nodes to explore, bucketed by f and then h
+        stateTable is the closed set and cost from start to a given state, kept together in one primitive table
+        both must be empty
+    */
+    private static SearchResult solveAStar(TreeState initialState, TreeState targetState, Heuristic heuristic, int[] swaps,
+                                           SearchStats stats, OpenList<SearchNode> openSet, StateTable stateTable) {
+
+        TreeState startState = initialState.withHeuristic(heuristic);
+
+        // Start from the initial state
+        SearchNode start = new SearchNode(startState, null, -1, 0, startState.getHeuristic());
+        openSet.push(start, start.fScore, start.hScore);
+        stateTable.updateGScore(startState, 0);
+
+        int nodesExplored = 0;
+        int nodesGenerated = 0;
+        // kept here and handed to stats at every progress report and at the end, see SearchStats
+        long duplicates = 0;
+        int openPeak = 1;
+        int bound = -1;
+
+        while (!openSet.isEmpty() && !Thread.currentThread().isInterrupted()) {
+            SearchNode current = openSet.pop();
             nodesExplored++;
+            if ((nodesExplored & SearchStats.PROGRESS_MASK) == 0) {
+                stats.progress(nodesExplored, nodesGenerated, duplicates, openPeak, stateTable.size());
+            }
 
-            // If we've already explored this state, skip it
-            if (closedSet.contains(current.state)) continue;
-            closedSet.add(current.state);
+            // If we've already explored this state, skip it (stale entries are only dropped here)
+            if (!stateTable.close(current.state, current.gScore)) {
+                duplicates++;
+                continue;
+            }
+            if (current.fScore > bound) {
+                bound = current.fScore;
+                stats.boundReached(bound);
+            }
 
             // if we’ve reached the target tree configuration
             if (current.state.equals(targetState)) {
-                return new SearchResult(current.path, current.gScore, nodesExplored);
+                finishAStar(stats, duplicates, openPeak, stateTable);
+                return SearchResult.fromMoves(initialState, current.toMoves(), nodesExplored, nodesGenerated, current.gScore);
             }
 
-            int n = current.state.getNumberOfNode();
-
-            // Try swapping each child with its parent
-            for (int child = 1; child < n; child++) {
+            // Try swapping each allowed child with its parent
+            for (int child : swaps) {
+                if (child == current.swappedChild) continue; // would only undo the swap that led here
                 TreeState newState = current.state.swap(child);
+                nodesGenerated++;
 
-                // Skip invalid or already explored states
-                if (newState == null || closedSet.contains(newState)) continue;
+                // Skip invalid states
+                if (newState == null) continue;
 
                 int tentativeG = current.gScore + 1; // One swap done
 
                 // If this path is better (shorter), update the scores
-                if (tentativeG < gScoreMap.getOrDefault(newState, Integer.MAX_VALUE)) {
-                    gScoreMap.put(newState, tentativeG);
-
-                    // Record the swap that was made
-                    List<String> newPath = new ArrayList<>(current.path);
-                    int parent = current.state.getParentIndex(child);
-                    newPath.add(String.format(
-                            "Swap node %d (value %d) with node %d (value %d)",
-                            child, current.state.getValue(child),
-                            parent, current.state.getValue(parent))
-                    );
-
-                    // Calculate estimated cost to goal
-                    int hScore = combinedHeuristic(newState, targetState);
-                    openSet.offer(new SearchNode(newState, newPath, tentativeG, hScore));
+                // an explored state is only opened again when the heuristic uses exact distances, it is consistent otherwise
+                if (stateTable.lowerGScore(newState, tentativeG)) {
+
+                    // Estimated cost to goal, already updated by swap()
+                    int hScore = newState.getHeuristic();
+                    // Only the parent link and the swapped child are kept, the path is rebuilt at the goal
+                    SearchNode node = new SearchNode(newState, current, child, tentativeG, hScore);
+                    openSet.push(node, node.fScore, node.hScore);
+                    if (openSet.size() > openPeak) openPeak = openSet.size();
+                } else {
+                    duplicates++;
                 }
             }
         }
+        finishAStar(stats, duplicates, openPeak, stateTable);
         return null;
     }
 
-    // Internal helper class to represent a node in the search tree for A* algorithm
-    private static class SearchNode implements Comparable<SearchNode> {
-
-        TreeState state;
-        List<String> path; // The swap steps taken to reach this state
-        int gScore; // Actual cost from start to this node
-        int hScore; // Estimated cost from this node to goal
-        int fScore; // Total estimated cost (g + h)
-
-        public SearchNode(TreeState state, List<String> path, int gScore, int hScore) {
-            this.state = state;
-            this.path = path;
-            this.gScore = gScore;
-            this.hScore = hScore;
-            this.fScore = gScore + hScore;
-        }
-
-        // Nodes with lower fScore get higher priority in the queue
-        @Override
-        public int compareTo(SearchNode other) {
-            if (this.fScore != other.fScore) return Integer.compare(this.fScore, other.fScore);
-            if (this.hScore != other.hScore) return Integer.compare(this.hScore, other.hScore);
-            return Integer.compare(other.gScore, this.gScore); // Prefer deeper paths if tie
-        }
+    private static void finishAStar(SearchStats stats, long duplicates, int openPeak, StateTable stateTable) {
+        stats.duplicates(duplicates);
+        stats.openSize(openPeak);
+        stats.closedSetSize(stateTable.size());
     }
 }
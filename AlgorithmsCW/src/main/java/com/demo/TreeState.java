@@ -1,33 +1,168 @@
 package com.demo;
 
 import java.util.Arrays;
+import java.util.SplittableRandom;
 
 public class TreeState {
 
-    private final int[] treeValues;// store value in an array
+    public static final int MAX_VALUE = 255; // every value has to fit in one byte of the packed array
+    private static final int VALUES_PER_WORD = 8; // 8 one-byte values are packed into each long
+
+    // Zobrist keys, one random long for every (position, value) pair
+    // the hash of a state is the XOR of the keys of its values, so a swap only changes four of them
+    private static final long[] ZOBRIST_KEYS = new long[(MAX_VALUE + 1) * (MAX_VALUE + 1)];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_7AB1EL); // fixed seed so hashes are the same on every run
+        for (int i = 0; i < ZOBRIST_KEYS.length; i++) {
+            ZOBRIST_KEYS[i] = random.nextLong();
+        }
+    }
+
+    private final long[] packedValues;// store values packed 8 per long instead of one int each
+    private final int numberOfNodes;
+    private final long zobristHash; // updated in O(1) on every swap
     private final int computedHashCode; // pre-calculated hashcode because initial array is immutable
 
+    private final Heuristic heuristic; // null when the state is not being searched
+    private final long[] packedPositions; // position of every value, packed like the values (only kept with a heuristic)
+    private final int heuristicSum; // heuristic in half swaps, updated on every swap
+
     public TreeState(int[] values) {
+        this(values, null);
+    }
+
+    /*
+        Creates a state that also tracks its heuristic value for the given target.
+        The sums are computed once here, every state made by swap() derives them from its parent.
+    */
+    public TreeState(int[] values, Heuristic heuristic) {
+
+        numberOfNodes = values.length;
+        if (numberOfNodes > MAX_VALUE) {
+            throw new IllegalArgumentException("Tree size " + numberOfNodes + " is too large for the packed state (max " + MAX_VALUE + " nodes)");
+        }
+        packedValues = new long[wordCount(numberOfNodes)];
+
+        long hash = 0;
+        for (int i = 0; i < numberOfNodes; i++) {
+            if (values[i] < 0 || values[i] > MAX_VALUE) {
+                throw new IllegalArgumentException("Node value " + values[i] + " does not fit in the packed state (max " + MAX_VALUE + ")");
+            }
+            packedValues[i / VALUES_PER_WORD] |= (long) values[i] << shift(i);
+            hash ^= zobristKey(i, values[i]);
+        }
+        this.zobristHash = hash;
+        this.computedHashCode = foldHash(hash); // hash is calculated only one time and return it whenever call it
+
+        this.heuristic = heuristic;
+        if (heuristic == null) {
+            this.packedPositions = null;
+            this.heuristicSum = 0;
+        } else {
+            if (heuristic.getNumberOfNode() != numberOfNodes) {
+                throw new IllegalArgumentException("Heuristic was built for " + heuristic.getNumberOfNode() + " nodes, tree has " + numberOfNodes);
+            }
+            int[] positions = new int[numberOfNodes + 1];
+            this.packedPositions = new long[wordCount(numberOfNodes + 1)];
+            for (int i = 0; i < numberOfNodes; i++) {
+                positions[values[i]] = i;
+                writeValue(packedPositions, values[i], i);
+            }
+            this.heuristicSum = heuristic.evaluate(positions);
+        }
+    }
+
+    // used by swap(), the packed arrays are already private copies and the hash and heuristic sum are already updated
+    private TreeState(long[] packedValues, int numberOfNodes, long zobristHash,
+                      Heuristic heuristic, long[] packedPositions, int heuristicSum) {
+        this.packedValues = packedValues;
+        this.numberOfNodes = numberOfNodes;
+        this.zobristHash = zobristHash;
+        this.computedHashCode = foldHash(zobristHash);
+        this.heuristic = heuristic;
+        this.packedPositions = packedPositions;
+        this.heuristicSum = heuristicSum;
+    }
 
-        treeValues = Arrays.copyOf(values, values.length);// creating for new copy from initial arrays
-        this.computedHashCode = Arrays.hashCode(treeValues); // hash is calculated only one time and return it whenever call it
+    private static long zobristKey(int position, int value) {
+        return ZOBRIST_KEYS[position * (MAX_VALUE + 1) + value];
+    }
 
+    private static int foldHash(long hash) {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    // number of longs needed to hold n packed values
+    public static int wordCount(int numberOfNodes) {
+        return (numberOfNodes + VALUES_PER_WORD - 1) / VALUES_PER_WORD;
+    }
+
+    // bit position of the byte that holds the value at this index inside its long
+    private static int shift(int index) {
+        return (index % VALUES_PER_WORD) * 8;
     }
 
 
     public int getNumberOfNode() {
-        return treeValues.length;
+        return numberOfNodes;
     }
 
     public int getValue(int index) {
-        if (index < 0 || index >= treeValues.length) {
-            throw new IndexOutOfBoundsException("Node index " + index + " is out of bounds for tree size " + treeValues.length);
+        if (index < 0 || index >= numberOfNodes) {
+            throw new IndexOutOfBoundsException("Node index " + index + " is out of bounds for tree size " + numberOfNodes);
+        }
+        return readByte(packedValues, index);
+    }
+
+    static int readByte(long[] packed, int index) {
+        return (int) (packed[index / VALUES_PER_WORD] >>> shift(index)) & 0xFF;
+    }
+
+    /*
+     gives the packed words directly to the StateTable so it can copy and compare keys without unpacking
+     the array must not be modified
+     */
+    long[] getPackedValues() {
+        return packedValues;
+    }
+
+    // rebuilds a state from packed words laid out like getPackedValues, starting at offset
+    static TreeState fromPackedValues(long[] packed, int offset, int numberOfNodes, Heuristic heuristic) {
+        int[] values = new int[numberOfNodes];
+        for (int i = 0; i < numberOfNodes; i++) {
+            values[i] = (int) (packed[offset + i / VALUES_PER_WORD] >>> shift(i)) & 0xFF;
+        }
+        return new TreeState(values, heuristic);
+    }
+
+    // estimated number of swaps left to the target, needs a state created with a Heuristic
+    public int getHeuristic() {
+        if (heuristic == null) {
+            throw new IllegalStateException("State was created without a heuristic");
+        }
+        return heuristic.estimate(this, heuristicSum);
+    }
+
+    // same values, but tracking the heuristic for the given target
+    public TreeState withHeuristic(Heuristic heuristic) {
+        return new TreeState(toArray(), heuristic);
+    }
+
+    public long getZobristHash() {
+        return zobristHash;
+    }
+
+    public int[] toArray() {
+        int[] values = new int[numberOfNodes];
+        for (int i = 0; i < numberOfNodes; i++) {
+            values[i] = getValue(i);
         }
-        return treeValues[index];
+        return values;
     }
 
     public int getParentIndex(int childIndex) {
-        if (childIndex <= 0 || childIndex >= treeValues.length) {
+        if (childIndex <= 0 || childIndex >= numberOfNodes) {
             // Root (index 0) has no parent
             return -1;
         }
@@ -36,12 +171,12 @@ public class TreeState {
 
     public int getLeftChildIndex(int parentIndex) {
         int leftChild = 2 * parentIndex + 1;
-        return (leftChild < treeValues.length) ? leftChild : -1; // -1 if no left child (out of bounds)
+        return (leftChild < numberOfNodes) ? leftChild : -1; // -1 if no left child (out of bounds)
     }
 
     public int getRightChildIndex(int parentIndex) {
         int rightChild = 2 * parentIndex + 2;
-        return (rightChild < treeValues.length) ? rightChild : -1; // -1 if no right child (out of bounds)
+        return (rightChild < numberOfNodes) ? rightChild : -1; // -1 if no right child (out of bounds)
     }
 
      /*
@@ -58,16 +193,37 @@ public class TreeState {
             return null;
         }
 
-        // Create a new array for the new state
-        int[] newTreeValues = Arrays.copyOf(this.treeValues, this.treeValues.length);
+        int childValue = getValue(childIndex);
+        int parentValue = getValue(parentIndex);
+
+        // Create a new packed array for the new state
+        long[] newPackedValues = Arrays.copyOf(this.packedValues, this.packedValues.length);
 
-        //  swap on the new array
-        int temp = newTreeValues[childIndex];
-        newTreeValues[childIndex] = newTreeValues[parentIndex];
-        newTreeValues[parentIndex] = temp;
+        //  swap the two bytes on the new array
+        writeValue(newPackedValues, childIndex, parentValue);
+        writeValue(newPackedValues, parentIndex, childValue);
+
+        // only the two swapped positions changed, so the hash and heuristic are updated from this state's values
+        long newHash = zobristHash
+                ^ zobristKey(childIndex, childValue) ^ zobristKey(parentIndex, parentValue)
+                ^ zobristKey(childIndex, parentValue) ^ zobristKey(parentIndex, childValue);
+
+        long[] newPackedPositions = null;
+        int newHeuristicSum = 0;
+        if (heuristic != null) {
+            newHeuristicSum = heuristicSum + heuristic.swapDelta(packedPositions, childIndex, parentIndex, childValue, parentValue);
+            newPackedPositions = Arrays.copyOf(packedPositions, packedPositions.length);
+            writeValue(newPackedPositions, childValue, parentIndex);
+            writeValue(newPackedPositions, parentValue, childIndex);
+        }
 
         // Return a new TreeState object
-        return new TreeState(newTreeValues);
+        return new TreeState(newPackedValues, numberOfNodes, newHash, heuristic, newPackedPositions, newHeuristicSum);
+    }
+
+    private static void writeValue(long[] packed, int index, int value) {
+        int word = index / VALUES_PER_WORD;
+        packed[word] = (packed[word] & ~(0xFFL << shift(index))) | ((long) value << shift(index));
     }
 
     @Override
@@ -82,8 +238,8 @@ public class TreeState {
         TreeState other = (TreeState) o;
 
 
-        //    Arrays.equals() comparing array contents element by element.
-        return Arrays.equals(this.treeValues, other.treeValues);
+        //    Arrays.equals() comparing the packed words, 8 values at a time.
+        return numberOfNodes == other.numberOfNodes && Arrays.equals(this.packedValues, other.packedValues);
     }
 
 
@@ -105,7 +261,7 @@ public class TreeState {
 
     @Override
     public String toString() {
-        return Arrays.toString(treeValues);
+        return Arrays.toString(toArray());
     }
 
 
@@ -1,89 +1,225 @@
 package com.demo.util;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.Closeable;
 import java.io.IOException;
-import java.util.*;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 public class InputParser {
 
+    private static final long MAP_THRESHOLD = 1 << 16; // files up to this size are read into the heap, larger ones are mapped
+    private static final int MAX_DIGITS = 10; // an int never has more
+
     /*
         This is the method "parser" that responsible for reading values from the file.
-        This will read all the values in the file and validate the input using the helper function call "validateInput()".
+        Every value in the file belongs to the one tree, whatever lines they are on, and is validated by "validateInput()".
+        The bytes are parsed directly (no regex, no boxing), from a heap buffer for small files and a memory mapping for large ones.
         This method will use path of the input file as a string And return the original tree data if validated.
+        Nothing is printed, the caller decides what to report.
     */
+    public static int[] parser(String filePath) throws IOException, IllegalArgumentException {
+
+        ByteBuffer data;
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > MAP_THRESHOLD) {
+                data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                data = ByteBuffer.allocate((int) size);
+                while (data.hasRemaining() && channel.read(data) >= 0) {
+                    // read until the buffer is full or the file ends
+                }
+                data.flip();
+            }
+        } catch (IOException e) {
+            throw new IOException("Error reading file: " + filePath, e);
+        }
 
-    public static int[] parser(String filePath) throws IOException,IllegalArgumentException{
-
-        // ArrayList that hold all the values from  file
-        List<Integer> collectedNumbers = new ArrayList<>();
-
-        try(BufferedReader reader = new BufferedReader(new FileReader(filePath))){
-
-            String line;
+        return parseValues(data, 0, data.limit(), "File");
+    }
 
-            while((line = reader.readLine()) != null){
+    // Same format as a file, but from a string (the solver daemon gets one tree per line).
+    public static int[] parseValues(String text) throws IllegalArgumentException {
+        byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1); // only digits, signs and spaces are valid anyway
+        return parseValues(ByteBuffer.wrap(bytes), 0, bytes.length, "Input");
+    }
 
-                String[] tokens = line.trim().split("\\s+");//split by one or more whitespace characters
+    /*
+        Reads one tree per line from a file, for inputs that hold many trees (blank lines are skipped).
+        The file is read through its channel a block at a time, so it can be far larger than the heap.
+    */
+    public static InstanceReader instances(Path path) throws IOException {
+        return new InstanceReader(FileChannel.open(path, StandardOpenOption.READ));
+    }
 
-                for (String token : tokens) {
-                    try {
+    // same, from a stream such as System.in
+    public static InstanceReader instances(InputStream in) {
+        return new InstanceReader(Channels.newChannel(in));
+    }
 
-                        collectedNumbers.add(Integer.parseInt(token));//convert string values to int and add to the array
+    // parses the whitespace separated values of data[from, to) and validates them, source names the input in errors
+    private static int[] parseValues(ByteBuffer data, int from, int to, String source) {
+        int[] values = new int[16];
+        int count = 0;
+        int i = from;
+        while (i < to) {
+            byte b = data.get(i);
+            if (isSpace(b)) {
+                i++;
+                continue;
+            }
 
-                    } catch (NumberFormatException e) {
-                        // If a token isn't an integer, throw an error
-                        throw new IllegalArgumentException("File contains non-integer value: '" + token + "'", e);
-                    }
-                }
+            int start = i;
+            boolean negative = b == '-';
+            if (b == '-' || b == '+') i++;
+            long value = 0;
+            int digits = 0;
+            for (; i < to && !isSpace(data.get(i)); i++) {
+                int digit = data.get(i) - '0';
+                if (digit < 0 || digit > 9 || ++digits > MAX_DIGITS) throw nonInteger(data, start, to, source);
+                value = value * 10 + digit;
+            }
+            if (digits == 0 || value > (negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE)) {
+                throw nonInteger(data, start, to, source);
             }
 
-        }
-        catch(IOException e){
-            throw new IOException("\"Error reading file: \" + filePath, e");
+            if (count == values.length) values = Arrays.copyOf(values, count * 2);
+            values[count++] = (int) (negative ? -value : value);
         }
 
         // Perform all validation
-        validateInput(collectedNumbers);
+        validateInput(values, count);
+        return count == values.length ? values : Arrays.copyOf(values, count);
+    }
 
-        return collectedNumbers.stream().mapToInt(Integer::intValue).toArray();
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0x0B;
     }
 
+    // If a token isn't an integer, throw an error naming the whole token
+    private static IllegalArgumentException nonInteger(ByteBuffer data, int start, int to, String source) {
+        int end = start;
+        while (end < to && !isSpace(data.get(end))) end++;
+        byte[] token = new byte[end - start];
+        data.get(start, token);
+        return new IllegalArgumentException(source + " contains non-integer value: '"
+                + new String(token, StandardCharsets.ISO_8859_1) + "'");
+    }
 
+    /*
+        helper function that validate the data
+        the values must be 1 to n, each once: every value in range with its bit not yet set in a bitset is enough,
+        so this is one pass with no sorting and no boxing
+    */
+    private static void validateInput(int[] values, int n) throws IllegalArgumentException {
 
+        // check for empty input file
+        if (n == 0) {
+            throw new IllegalArgumentException("input file is empty");
+        }
 
+        long[] seen = new long[(n >>> 6) + 1];
+        for (int i = 0; i < n; i++) {
+            int value = values[i];
 
+            // check for correct order of values
+            if (value < 1 || value > n) {
+                throw new IllegalArgumentException("Numbers are not a complete sequence from 1 to " + n + "  Found " + value);
+            }
 
+            // check for duplicate value
+            long bit = 1L << value; // only the low 6 bits of the shift count are used
+            if ((seen[value >>> 6] & bit) != 0) {
+                throw new IllegalArgumentException("duplicate values found");
+            }
+            seen[value >>> 6] |= bit;
+        }
+    }
 
     /*
-        helper function that validate the data
+        Gives the trees of a multi-tree input one line at a time.
+        Lines are found in a block buffer that only grows for a line longer than itself, a tree is parsed straight from it.
+        A line that is not a valid tree throws IllegalArgumentException from next(), the reader is already past it,
+        so the caller can report it and go on with the next one.
     */
-    private static void validateInput(List<Integer> collectedNumbers) throws IllegalArgumentException{
+    public static class InstanceReader implements Closeable {
 
-        int n = collectedNumbers.size(); //original size of the list
-        Set<Integer> numberSet = new HashSet<>(collectedNumbers);
-        List<Integer> sortedValues = new ArrayList<>(collectedNumbers); // Create a copy to sort
-        Collections.sort(sortedValues);
+        private static final int BLOCK_BYTES = 1 << 16;
 
-        // check for empty input file
-        if(collectedNumbers.isEmpty()){
-            throw new IllegalArgumentException("input file is empty");
+        private final ReadableByteChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(BLOCK_BYTES);
+        private boolean endOfInput;
+        private int lineNumber;
+
+        InstanceReader(ReadableByteChannel channel) {
+            this.channel = channel;
+            buffer.flip(); // nothing read yet
+        }
+
+        // the next tree, or null at the end of the input
+        public int[] next() throws IOException {
+            while (true) {
+                int newline = indexOfNewline();
+                if (newline >= 0 || (endOfInput && buffer.hasRemaining())) {
+                    int start = buffer.position();
+                    int end = newline >= 0 ? newline : buffer.limit();
+                    buffer.position(newline >= 0 ? newline + 1 : end);
+                    lineNumber++;
+                    if (isBlank(start, end)) continue;
+                    try {
+                        return parseValues(buffer, start, end, "Input");
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage(), e);
+                    }
+                }
+                if (endOfInput) return null;
+                fill();
+            }
+        }
+
+        // line of the tree last returned or rejected, from 1
+        public int getLineNumber() {
+            return lineNumber;
         }
 
-        // check for duplicate value
-        if(numberSet.size() != n){
-            throw new IllegalArgumentException("duplicate values found");
+        private int indexOfNewline() {
+            for (int i = buffer.position(); i < buffer.limit(); i++) {
+                if (buffer.get(i) == '\n') return i;
+            }
+            return -1;
         }
 
-        // check for correct order of values
-        for(int i = 0 ; i < n ; i++){
-            if(sortedValues.get(i) != (i+1)){
-                throw new IllegalArgumentException("Numbers are not a complete sequence from 1 to " + n + "  Found ");
+        private boolean isBlank(int start, int end) {
+            for (int i = start; i < end; i++) {
+                if (!isSpace(buffer.get(i))) return false;
             }
+            return true;
         }
 
-        System.out.println(" Validation successful ");
+        // keeps the unread part of the buffer and reads more after it, growing the buffer if it is all one line
+        private void fill() throws IOException {
+            buffer.compact();
+            if (!buffer.hasRemaining()) {
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+            if (channel.read(buffer) < 0) endOfInput = true;
+            buffer.flip();
+        }
 
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
     }
-
 }
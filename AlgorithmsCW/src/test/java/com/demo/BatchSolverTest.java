@@ -0,0 +1,66 @@
+package com.demo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchSolverTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void solvesEveryFileAndReportsBadOnes() throws IOException {
+        Path inputs = Files.createDirectory(directory.resolve("inputs"));
+        Files.writeString(inputs.resolve("a.txt"), "4 3 6 1 2 5 7\n");
+        Files.writeString(inputs.resolve("b.txt"), "2 1 3\n");
+        Files.writeString(inputs.resolve("c.txt"), "1 1 2\n");
+        Path output = directory.resolve("results.csv");
+
+        assertEquals(2, BatchSolver.run(inputs.toString(), SolverMode.A_STAR, 10, output));
+        Map<String, Map<String, String>> rows = readCsv(output);
+        assertEquals("solved", rows.get("a.txt").get("status"));
+        assertEquals("1", rows.get("a.txt").get("swaps"));
+        assertEquals("true", rows.get("a.txt").get("verified"));
+        assertEquals("0", rows.get("b.txt").get("swaps"));
+        assertEquals("error", rows.get("c.txt").get("status"));
+    }
+
+    // the timeout interrupts the engine, which hands back its best solution instead of nothing
+    @Test
+    void timeoutKeepsTheBestSolutionSoFar() throws IOException {
+        Path inputs = Files.createDirectory(directory.resolve("inputs"));
+        Files.copy(Path.of("input/bounded_63_0.txt"), inputs.resolve("hard.txt"));
+        Path output = directory.resolve("results.csv");
+        SolverOptions options = SolverOptions.DEFAULT.withTimeLimitMillis(60_000); // the engine's own deadline comes later
+
+        assertEquals(1, BatchSolver.run(inputs.toString(), SolverMode.ANYTIME, options, 1, output));
+        Map<String, String> row = readCsv(output).get("hard.txt");
+        assertEquals("bounded", row.get("status"));
+        assertEquals("true", row.get("verified"));
+        assertTrue(Integer.parseInt(row.get("lower_bound")) < Integer.parseInt(row.get("swaps")), row.toString());
+    }
+
+    // rows by file name
+    private static Map<String, Map<String, String>> readCsv(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file);
+        String[] header = lines.get(0).split(",", -1);
+        Map<String, Map<String, String>> rows = new HashMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            String[] values = line.split(",", -1);
+            Map<String, String> row = new HashMap<>();
+            for (int i = 0; i < header.length; i++) row.put(header[i], values[i]);
+            rows.put(Path.of(row.get("file")).getFileName().toString(), row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,78 @@
+package com.demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BranchAndBoundSolverTest {
+
+    @Test
+    void greedySolutionAlwaysVerifies() {
+        for (int n : new int[]{1, 3, 7, 15, 31, 63, 127, 255}) {
+            TreeState target = new TreeState(TargetBST.targetValues(n));
+            SolutionVerifier verifier = new SolutionVerifier(n);
+            for (int k : new int[]{0, 1, 5, 50, 500}) {
+                for (int index = 0; index < 5; index++) {
+                    TreeState initialState = new TreeState(TestInputs.scrambled(n, k, n * 1000L + k * 10L + index));
+                    int[] moves = GreedySolver.moves(initialState, target, Decomposition.allSwaps(n));
+                    assertNotNull(moves);
+                    assertTrue(verifier.verify(initialState, moves), "n=" + n + " k=" + k + " index " + index);
+                }
+            }
+        }
+    }
+
+    @Test
+    void matchesAStarWhenTheSearchFinishes() {
+        for (int n : new int[]{7, 15}) {
+            TreeState target = new TreeState(TargetBST.targetValues(n));
+            Heuristic heuristic = new Heuristic(target);
+            for (int k : new int[]{2, 6, 10}) {
+                for (int index = 0; index < 4; index++) {
+                    TreeState initialState = new TreeState(TestInputs.scrambled(n, k, n * 1000L + k * 10L + index));
+                    SearchResult result = BranchAndBoundSolver.solve(initialState, target, heuristic);
+                    SearchResult optimal = TreeSolver.solve(initialState, SolverMode.A_STAR);
+                    assertTrue(result.isProvenOptimal(), initialState::toString);
+                    assertEquals(optimal.getNumberOfSwaps(), result.getNumberOfSwaps(), initialState::toString);
+                    assertTrue(new SolutionVerifier(n).verify(initialState, result));
+                }
+            }
+        }
+    }
+
+    // with no time to search, the greedy solution comes back with only the heuristic proven
+    @Test
+    void deadlineReturnsTheBestSolutionSoFar() {
+        int n = 127;
+        TreeState target = new TreeState(TargetBST.targetValues(n));
+        Heuristic heuristic = new Heuristic(target);
+        TreeState initialState = new TreeState(TestInputs.scrambled(n, 200, 3));
+        SearchResult result = BranchAndBoundSolver.solve(initialState, target, heuristic, Decomposition.allSwaps(n), 1, null);
+        assertNotNull(result);
+        assertTrue(new SolutionVerifier(n).verify(initialState, result));
+        assertEquals(initialState.withHeuristic(heuristic).getHeuristic(), result.getLowerBound());
+        assertTrue(result.getLowerBound() <= result.getNumberOfSwaps());
+    }
+
+    @Test
+    void everyImprovementIsShorterAndValid() {
+        int n = 15;
+        TreeState target = new TreeState(TargetBST.targetValues(n));
+        TreeState initialState = new TreeState(TestInputs.scrambled(n, 14, 11));
+        List<SearchResult> improvements = new ArrayList<>();
+        SearchResult result = BranchAndBoundSolver.solve(initialState, target, new Heuristic(target),
+                Decomposition.allSwaps(n), BranchAndBoundSolver.DEFAULT_TIME_LIMIT_MILLIS, improvements::add);
+
+        assertTrue(!improvements.isEmpty());
+        for (int i = 0; i < improvements.size(); i++) {
+            assertTrue(new SolutionVerifier(n).verify(initialState, improvements.get(i)));
+            if (i > 0) assertTrue(improvements.get(i).getNumberOfSwaps() < improvements.get(i - 1).getNumberOfSwaps());
+        }
+        assertEquals(improvements.get(improvements.size() - 1).getNumberOfSwaps(), result.getNumberOfSwaps());
+    }
+}
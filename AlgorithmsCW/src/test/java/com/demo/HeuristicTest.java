@@ -0,0 +1,87 @@
+package com.demo;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeuristicTest {
+
+    private static final int N = 7;
+
+    private static TreeState target;
+    private static Map<TreeState, Integer> distances; // optimal swaps to the target of every tree of N nodes
+
+    // breadth-first from the target over all 7! trees, a swap is its own inverse so the distances are the same both ways
+    @BeforeAll
+    static void exploreEveryTree() {
+        target = new TreeState(TestInputs.scrambled(N, 0, 0));
+        distances = new HashMap<>();
+        distances.put(target, 0);
+        ArrayDeque<TreeState> queue = new ArrayDeque<>();
+        queue.add(target);
+        while (!queue.isEmpty()) {
+            TreeState state = queue.poll();
+            int distance = distances.get(state);
+            for (int child = 1; child < N; child++) {
+                TreeState next = state.swap(child);
+                if (distances.putIfAbsent(next, distance + 1) == null) queue.add(next);
+            }
+        }
+    }
+
+    @Test
+    void everyTreeIsReachable() {
+        assertEquals(5040, distances.size());
+    }
+
+    @Test
+    void admissibleWithPatternDatabases() {
+        assertAdmissible(new Heuristic(target, true));
+    }
+
+    @Test
+    void admissibleWithTreeDistanceOnly() {
+        assertAdmissible(new Heuristic(target, false));
+    }
+
+    @Test
+    void patternDatabasesNeverLowerTheEstimate() {
+        Heuristic withTables = new Heuristic(target, true);
+        Heuristic distanceOnly = new Heuristic(target, false);
+        for (TreeState state : distances.keySet()) {
+            assertTrue(state.withHeuristic(withTables).getHeuristic() >= state.withHeuristic(distanceOnly).getHeuristic(),
+                    state::toString);
+        }
+    }
+
+    @Test
+    void patternDatabaseMatchesItsBuild() {
+        for (int depth : PatternDatabase.groupRootDepths(15)) {
+            PatternDatabase loaded = PatternDatabase.get(15, depth);
+            PatternDatabase built = PatternDatabase.build(15, depth);
+            for (int p0 = 0; p0 < 15; p0++) {
+                for (int p1 = 0; p1 < 15; p1++) {
+                    for (int p2 = 0; p2 < 15; p2++) {
+                        if (p0 == p1 || p0 == p2 || p1 == p2) continue;
+                        assertEquals(built.get(p0, p1, p2), loaded.get(p0, p1, p2));
+                    }
+                }
+            }
+        }
+    }
+
+    private static void assertAdmissible(Heuristic heuristic) {
+        for (Map.Entry<TreeState, Integer> entry : distances.entrySet()) {
+            int estimate = entry.getKey().withHeuristic(heuristic).getHeuristic();
+            assertTrue(estimate <= entry.getValue(),
+                    entry.getKey() + ": estimate " + estimate + " over the optimum " + entry.getValue());
+        }
+        assertEquals(0, target.withHeuristic(heuristic).getHeuristic());
+    }
+}
@@ -0,0 +1,81 @@
+package com.demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OpenListTest {
+
+    @Test
+    void popsLowestFThenLowestH() {
+        OpenList<int[]> open = new OpenList<>();
+        SplittableRandom random = new SplittableRandom(3);
+        for (int i = 0; i < 2000; i++) {
+            int f = random.nextInt(200); // past the first 64 levels, so the level array grows
+            int h = random.nextInt(40);
+            open.push(new int[]{f, h}, f, h);
+        }
+        int[] previous = {-1, -1};
+        while (!open.isEmpty()) {
+            assertEquals(open.peekF(), peekAndPop(open, previous));
+        }
+        assertEquals(Integer.MAX_VALUE, open.peekF());
+        assertNull(open.pop());
+    }
+
+    // entries with the same f and h come out last in, first out
+    @Test
+    void sameBucketIsLastInFirstOut() {
+        OpenList<String> open = new OpenList<>();
+        open.push("a", 5, 2);
+        open.push("b", 5, 2);
+        open.push("c", 5, 1);
+        assertEquals("c", open.pop());
+        assertEquals("b", open.pop());
+        assertEquals("a", open.pop());
+    }
+
+    @Test
+    void pushBelowTheCurrentMinimumComesOutNext() {
+        OpenList<String> open = new OpenList<>();
+        open.push("late", 9, 0);
+        assertEquals("late", open.pop());
+        open.push("high", 9, 3);
+        open.push("low", 4, 3);
+        assertEquals(4, open.peekF());
+        assertEquals("low", open.pop());
+        assertEquals("high", open.pop());
+    }
+
+    @Test
+    void clearEmptiesTheListForReuse() {
+        OpenList<String> open = new OpenList<>();
+        List<String> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add("x" + i);
+            open.push(items.get(i), i % 7, i % 3);
+        }
+        open.clear();
+        assertEquals(0, open.size());
+        assertTrue(open.isEmpty());
+        open.push("only", 50, 0);
+        assertEquals("only", open.pop());
+        assertTrue(open.isEmpty());
+    }
+
+    // pops one entry, checks it does not come before the previous one and returns its f
+    private static int peekAndPop(OpenList<int[]> open, int[] previous) {
+        int[] entry = open.pop();
+        assertTrue(entry[0] > previous[0] || entry[0] == previous[0] && entry[1] >= previous[1],
+                "(" + entry[0] + ", " + entry[1] + ") after (" + previous[0] + ", " + previous[1] + ")");
+        previous[0] = entry[0];
+        previous[1] = entry[1];
+        return entry[0];
+    }
+}
@@ -0,0 +1,72 @@
+package com.demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchStatsTest {
+
+    // collects every call, listeners are called on the searching thread
+    private static class Recorder implements SearchListener {
+
+        final List<Integer> bounds = new ArrayList<>();
+        final List<SearchStats> finished = new ArrayList<>();
+
+        @Override
+        public void boundRaised(SearchStats stats, int bound) {
+            bounds.add(bound);
+        }
+
+        @Override
+        public void searchFinished(SearchStats stats, SearchResult result) {
+            finished.add(stats);
+        }
+    }
+
+    @Test
+    void aStarHandsOverItsCountsWhenItReturns() {
+        TreeState initialState = new TreeState(TestInputs.read("input/bounded_31_3.txt"));
+        Recorder recorder = new Recorder();
+        SearchResult result = TreeSolver.solve(initialState, SolverMode.A_STAR, SolverOptions.DEFAULT, recorder);
+
+        assertEquals(1, recorder.finished.size());
+        SearchStats stats = recorder.finished.get(0);
+        assertNotNull(result.getStats());
+        assertEquals(result.getNodesExplored(), stats.getNodesExpanded());
+        assertEquals(result.getNodesGenerated(), stats.getNodesGenerated());
+        assertTrue(stats.getDuplicates() > 0);
+        assertTrue(stats.getOpenPeak() > 0);
+        assertTrue(stats.getClosedSetSize() > 0);
+
+        // raised once per new bound, in increasing order, ending at the solution length of a consistent search
+        for (int i = 1; i < recorder.bounds.size(); i++) {
+            assertTrue(recorder.bounds.get(i) > recorder.bounds.get(i - 1), recorder.bounds::toString);
+        }
+        assertEquals(result.getNumberOfSwaps(), (int) recorder.bounds.get(recorder.bounds.size() - 1));
+    }
+
+    @Test
+    void bidirectionalCountsDuplicates() {
+        TreeState initialState = new TreeState(TestInputs.read("input/bounded_31_3.txt"));
+        Recorder recorder = new Recorder();
+        TreeSolver.solve(initialState, SolverMode.BIDIRECTIONAL, SolverOptions.DEFAULT, recorder);
+        assertTrue(recorder.finished.get(0).getDuplicates() > 0);
+    }
+
+    @Test
+    void errorHistogramOnlyForProvenResults() {
+        TreeState initialState = new TreeState(TestInputs.read("input/bounded_15_2.txt"));
+        SearchResult proven = TreeSolver.solve(initialState, SolverMode.A_STAR);
+        int states = 0;
+        for (int count : proven.getStats().getHeuristicErrors()) states += count;
+        assertEquals(proven.getNumberOfSwaps() + 1, states);
+
+        SearchResult decomposed = TreeSolver.solve(initialState, SolverMode.A_STAR, SolverOptions.DEFAULT.withDecompose(true));
+        for (int count : decomposed.getStats().getHeuristicErrors()) assertEquals(0, count);
+    }
+}
@@ -0,0 +1,129 @@
+package com.demo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SolutionCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private static TreeState instance(int n, int k, int index) {
+        return new TreeState(InstanceGenerator.generate(n, k, InstanceGenerator.instanceSeed(1, n, k, index)));
+    }
+
+    private static void solveAndStore(SolutionCache cache, TreeState initialState) {
+        TreeState target = TargetBST.createTargetBST(initialState);
+        int[] swaps = Decomposition.allSwaps(initialState.getNumberOfNode());
+        cache.store(initialState, target, swaps, TreeSolver.solve(initialState, SolverMode.A_STAR));
+    }
+
+    // every state on the stored path has its exact distance in the table
+    private static void assertPathDistances(StateTable table, TreeState initialState, SearchResult result) {
+        TreeState state = initialState;
+        int[] moves = result.getMoves();
+        for (int step = 0; step < moves.length; step++) {
+            assertEquals(moves.length - step, table.getGScore(state), initialState + " step " + step);
+            state = state.swap(moves[step]);
+        }
+    }
+
+    @Test
+    void repeatedInstanceIsAnsweredFromTheCache() {
+        SolutionCache cache = SolutionCache.open(directory.resolve("cache.bin"), SolutionCache.DEFAULT_MAX_BYTES);
+        TreeState initialState = instance(15, 10, 0);
+        TreeState target = TargetBST.createTargetBST(initialState);
+        int[] swaps = Decomposition.allSwaps(15);
+        assertNull(cache.lookup(initialState, target, swaps));
+
+        SearchResult solved = TreeSolver.solve(initialState, SolverMode.A_STAR);
+        cache.store(initialState, target, swaps, solved);
+        SearchResult cached = cache.lookup(initialState, target, swaps);
+        assertNotNull(cached);
+        assertEquals(solved.getNumberOfSwaps(), cached.getNumberOfSwaps());
+        assertTrue(new SolutionVerifier(15).verify(initialState, cached));
+    }
+
+    @Test
+    void storedDistancesAreAddedToTheBuiltTable() {
+        SolutionCache cache = SolutionCache.open(directory.resolve("cache.bin"), SolutionCache.DEFAULT_MAX_BYTES);
+        TreeState target = new TreeState(TargetBST.targetValues(15));
+        int[] swaps = Decomposition.allSwaps(15);
+        assertNull(cache.distances(target, swaps));
+
+        TreeState first = instance(15, 10, 1);
+        solveAndStore(cache, first);
+        StateTable table = cache.distances(target, swaps);
+        assertPathDistances(table, first, cache.lookup(first, target, swaps));
+
+        TreeState second = instance(15, 10, 2);
+        solveAndStore(cache, second);
+        StateTable after = cache.distances(target, swaps);
+        assertSame(table, after); // updated in place while it has room
+        assertPathDistances(after, second, cache.lookup(second, target, swaps));
+        assertPathDistances(after, first, cache.lookup(first, target, swaps));
+    }
+
+    @Test
+    void fullTableIsReplacedByALargerCopy() {
+        SolutionCache cache = SolutionCache.open(directory.resolve("cache.bin"), SolutionCache.DEFAULT_MAX_BYTES);
+        TreeState target = new TreeState(TargetBST.targetValues(15));
+        int[] swaps = Decomposition.allSwaps(15);
+        solveAndStore(cache, instance(15, 6, 0));
+        StateTable first = cache.distances(target, swaps);
+        int firstSize = first.size();
+
+        for (int index = 1; index < 40; index++) solveAndStore(cache, instance(15, 12, index));
+        StateTable grown = cache.distances(target, swaps);
+        assertTrue(grown.size() > firstSize);
+        assertTrue(grown != first, "the first table never had room for 39 more paths");
+        for (int index = 1; index < 40; index++) {
+            TreeState initialState = instance(15, 12, index);
+            assertPathDistances(grown, initialState, cache.lookup(initialState, target, swaps));
+        }
+    }
+
+    // a problem whose distances a search took counts as used, so its entries outlive older entries of other problems
+    @Test
+    void distancesKeepTheirProblemInTheCache() {
+        SolutionCache cache = SolutionCache.open(directory.resolve("cache.bin"), 4096);
+        TreeState small = instance(7, 6, 0);
+        solveAndStore(cache, small);
+        TreeState smallTarget = TargetBST.createTargetBST(small);
+        int[] smallSwaps = Decomposition.allSwaps(7);
+
+        for (int index = 0; index < 30; index++) {
+            solveAndStore(cache, instance(15, 8, index));
+            assertNotNull(cache.distances(smallTarget, smallSwaps)); // a search on the small problem between stores
+        }
+        assertNotNull(cache.lookup(small, smallTarget, smallSwaps));
+        assertNull(cache.lookup(instance(15, 8, 0), TargetBST.createTargetBST(instance(15, 8, 0)), Decomposition.allSwaps(15)));
+    }
+
+    @Test
+    void savedCacheOpensWithTheSameEntries() throws IOException {
+        Path file = directory.resolve("cache.bin");
+        SolutionCache cache = SolutionCache.open(file, SolutionCache.DEFAULT_MAX_BYTES);
+        for (int index = 0; index < 5; index++) solveAndStore(cache, instance(15, 9, index));
+        cache.save();
+
+        SolutionCache reopened = SolutionCache.open(file, SolutionCache.DEFAULT_MAX_BYTES);
+        assertEquals(cache.size(), reopened.size());
+        TreeState target = new TreeState(TargetBST.targetValues(15));
+        int[] swaps = Decomposition.allSwaps(15);
+        for (int index = 0; index < 5; index++) {
+            TreeState initialState = instance(15, 9, index);
+            assertEquals(cache.lookup(initialState, target, swaps).getNumberOfSwaps(),
+                    reopened.lookup(initialState, target, swaps).getNumberOfSwaps());
+        }
+    }
+}
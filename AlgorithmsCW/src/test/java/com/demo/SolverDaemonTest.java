@@ -0,0 +1,104 @@
+package com.demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SolverDaemonTest {
+
+    private static final Pattern ID = Pattern.compile("^\\{\"id\":(\\d+),\"status\":\"(\\w+)\"");
+    private static final Pattern MOVES = Pattern.compile("\"moves\":\\[([\\d,]*)]");
+
+    @Test
+    void repliesComeInRequestOrder() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            int n = i % 3 == 0 ? 15 : 7; // mixed sizes so batches finish out of order
+            lines.add(toLine(TestInputs.scrambled(n, 1 + i % 8, i)));
+        }
+        List<String> replies = serve(lines);
+
+        assertEquals(lines.size(), replies.size());
+        for (int i = 0; i < replies.size(); i++) {
+            Matcher reply = ID.matcher(replies.get(i));
+            assertTrue(reply.find(), replies.get(i));
+            assertEquals(i + 1, Integer.parseInt(reply.group(1)));
+            assertEquals("solved", reply.group(2), replies.get(i));
+            TreeState initialState = new TreeState(com.demo.util.InputParser.parseValues(lines.get(i)));
+            assertTrue(new SolutionVerifier(initialState.getNumberOfNode()).verify(initialState, moves(replies.get(i))),
+                    replies.get(i));
+        }
+    }
+
+    @Test
+    void badRequestGetsAnErrorAndTheStreamGoesOn() throws IOException {
+        List<String> replies = serve(List.of("2 1 3", "1 1 2", "4 2 6 1 3 x 7", "", "3 1 2"));
+
+        assertEquals(4, replies.size()); // the blank line is not a request
+        assertTrue(replies.get(0).startsWith("{\"id\":1,\"status\":\"solved\""), replies.get(0));
+        assertEquals("{\"id\":2,\"status\":\"error\",\"error\":\"duplicate values found\"}", replies.get(1));
+        assertTrue(replies.get(2).startsWith("{\"id\":3,\"status\":\"error\""), replies.get(2));
+        assertTrue(replies.get(2).contains("'x'"), replies.get(2));
+        assertTrue(replies.get(3).startsWith("{\"id\":4,\"status\":\"solved\""), replies.get(3));
+        assertTrue(replies.get(3).contains("\"swaps\":1"), replies.get(3));
+    }
+
+    @Test
+    void closeStopsListen() throws Exception {
+        SolverDaemon daemon = new SolverDaemon(SolverMode.A_STAR, SolverOptions.DEFAULT, 1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread listener = new Thread(() -> {
+            try {
+                daemon.listen(0);
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        listener.start();
+        Thread.sleep(200); // let it reach accept, closing earlier is fine too
+        daemon.close();
+        listener.join(5000);
+
+        assertFalse(listener.isAlive(), "listen did not return after close");
+        assertNull(failure.get());
+    }
+
+    private static List<String> serve(List<String> lines) throws IOException {
+        byte[] input = (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (SolverDaemon daemon = new SolverDaemon(SolverMode.A_STAR, SolverOptions.DEFAULT, 4)) {
+            daemon.serve(new ByteArrayInputStream(input), output);
+        }
+        String text = output.toString(StandardCharsets.UTF_8);
+        return text.isEmpty() ? List.of() : List.of(text.split("\n"));
+    }
+
+    private static String toLine(int[] values) {
+        StringBuilder line = new StringBuilder();
+        for (int value : values) line.append(value).append(' ');
+        return line.toString();
+    }
+
+    private static int[] moves(String reply) {
+        Matcher moves = MOVES.matcher(reply);
+        assertTrue(moves.find(), reply);
+        if (moves.group(1).isEmpty()) return new int[0];
+        String[] parts = moves.group(1).split(",");
+        int[] result = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) result[i] = Integer.parseInt(parts[i]);
+        return result;
+    }
+}
@@ -0,0 +1,160 @@
+package com.demo;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SolverModesTest {
+
+    private static final List<TreeState> INSTANCES = new ArrayList<>();
+    private static final List<Integer> OPTIMAL = new ArrayList<>(); // swaps A* needs for each instance
+
+    @BeforeAll
+    static void solveWithAStar() {
+        for (int n : new int[]{3, 7, 15}) {
+            for (int k : new int[]{0, 1, 4, 8}) {
+                for (int index = 0; index < 3; index++) {
+                    TreeState initialState = new TreeState(TestInputs.scrambled(n, k, n * 100L + k * 10L + index));
+                    SearchResult result = TreeSolver.solve(initialState, SolverMode.A_STAR);
+                    assertNotNull(result);
+                    INSTANCES.add(initialState);
+                    OPTIMAL.add(result.getNumberOfSwaps());
+                }
+            }
+        }
+    }
+
+    // every engine is exact on trees this small, including the one that stops at a deadline
+    @ParameterizedTest
+    @EnumSource(SolverMode.class)
+    void everyModeFindsTheOptimum(SolverMode mode) {
+        for (int i = 0; i < INSTANCES.size(); i++) {
+            TreeState initialState = INSTANCES.get(i);
+            SearchResult result = TreeSolver.solve(initialState, mode, SolverOptions.DEFAULT);
+            assertNotNull(result, mode + " on " + initialState);
+            assertEquals(OPTIMAL.get(i), result.getNumberOfSwaps(), mode + " on " + initialState);
+            assertTrue(result.isProvenOptimal(), mode + " on " + initialState);
+            assertTrue(verifier(initialState).verify(initialState, result), mode + " on " + initialState);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = SolverMode.class, names = {"IDA_STAR", "BIDIRECTIONAL", "PARALLEL"})
+    void optimalLengthsOfTheBundledInputs(SolverMode mode) {
+        int[] expected = {8, 7, 17, 14, 11, 15, 12, 9, 11, 7}; // input/bounded_15_0 to _9
+        for (int i = 0; i < expected.length; i++) {
+            TreeState initialState = new TreeState(TestInputs.read("input/bounded_15_" + i + ".txt"));
+            SearchResult result = TreeSolver.solve(initialState, mode);
+            assertEquals(expected[i], result.getNumberOfSwaps(), mode + " on bounded_15_" + i);
+        }
+    }
+
+    // the hash-distributed search has to stay optimal whatever the number of workers racing on the bound
+    @Test
+    void parallelSearchIsOptimalForAnyThreadCount() {
+        for (int threads : new int[]{1, 2, 3, 8}) {
+            for (int i = 0; i < INSTANCES.size(); i++) {
+                TreeState initialState = INSTANCES.get(i);
+                TreeState target = TargetBST.createTargetBST(initialState);
+                SearchResult result = ParallelSolver.solve(initialState, target, new Heuristic(target),
+                        swaps(initialState), threads);
+                assertEquals(OPTIMAL.get(i), result.getNumberOfSwaps(), threads + " threads on " + initialState);
+                assertTrue(verifier(initialState).verify(initialState, result), threads + " threads on " + initialState);
+            }
+        }
+        TreeState state = INSTANCES.get(0);
+        assertThrows(IllegalArgumentException.class, () -> ParallelSolver.solve(state, state, new Heuristic(state), swaps(state), 0));
+    }
+
+    // region results keep every swap inside a region, they are valid but only bounded by the whole-tree heuristic
+    @ParameterizedTest
+    @EnumSource(SolverMode.class)
+    void decomposedResultsAreNotClaimedOptimal(SolverMode mode) {
+        SolverOptions options = SolverOptions.DEFAULT.withDecompose(true);
+        for (int i = 0; i < INSTANCES.size(); i++) {
+            TreeState initialState = INSTANCES.get(i);
+            SearchResult result = TreeSolver.solve(initialState, mode, options);
+            assertNotNull(result, mode + " on " + initialState);
+            assertTrue(result.getNumberOfSwaps() >= OPTIMAL.get(i), mode + " on " + initialState);
+            assertTrue(verifier(initialState).verify(initialState, result), mode + " on " + initialState);
+            TreeState target = TargetBST.createTargetBST(initialState);
+            int wholeTreeBound = initialState.withHeuristic(new Heuristic(target)).getHeuristic();
+            assertEquals(wholeTreeBound, result.getLowerBound(), mode + " on " + initialState);
+        }
+    }
+
+    // stopped at its first solution, the anytime search still reports a bound the solution is measured against
+    @Test
+    void anytimeSolutionsImproveWithinTheWeightBound() {
+        TreeState initialState = new TreeState(TestInputs.read("input/bounded_15_2.txt"));
+        TreeState target = TargetBST.createTargetBST(initialState);
+        int optimal = 17;
+
+        SearchResult first = AnytimeSolver.solve(initialState, target, new Heuristic(target), swaps(initialState), 2.0, 0, null);
+        assertTrue(first.getNumberOfSwaps() <= 2 * optimal, first::toString);
+        assertTrue(first.getLowerBound() <= optimal, first::toString);
+        assertTrue(verifier(initialState).verify(initialState, first));
+
+        List<Integer> improvements = new ArrayList<>();
+        SearchResult last = AnytimeSolver.solve(initialState, target, new Heuristic(target), swaps(initialState), 2.0, 60_000,
+                improvement -> improvements.add(improvement.getNumberOfSwaps()));
+        assertEquals(optimal, last.getNumberOfSwaps());
+        assertTrue(last.isProvenOptimal());
+        for (int i = 1; i < improvements.size(); i++) {
+            assertTrue(improvements.get(i) < improvements.get(i - 1), improvements::toString);
+        }
+        assertEquals(optimal, improvements.get(improvements.size() - 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> AnytimeSolver.solve(initialState, target, new Heuristic(target), swaps(initialState), 0.5, 0, null));
+    }
+
+    // a budget far below what A* stores, so the search keeps evicting and coming back
+    @Test
+    void tightMemoryBudgetEvictsAndCountsEveryRegeneration() {
+        TreeState initialState = new TreeState(TestInputs.read("input/bounded_15_2.txt"));
+        TreeState target = TargetBST.createTargetBST(initialState);
+        SearchResult result = MemoryBoundedSolver.solve(initialState, target, new Heuristic(target),
+                swaps(initialState), 300);
+
+        assertNotNull(result);
+        assertEquals(17, result.getNumberOfSwaps());
+        assertTrue(verifier(initialState).verify(initialState, result));
+        assertTrue(result.getEvictions() > 0, result::toString);
+        assertTrue(result.getRegenerations() > 0, result::toString);
+        assertTrue(result.getRegenerations() <= result.getEvictions(), result::toString); // once per eviction at most
+        assertThrows(IllegalArgumentException.class,
+                () -> MemoryBoundedSolver.solve(initialState, target, new Heuristic(target), swaps(initialState), 1));
+    }
+
+    // a buffer of 64 records makes every layer go through sorted runs on disk and the merge
+    @Test
+    void externalSearchThroughSmallSpillBuffers(@TempDir Path directory) {
+        TreeState initialState = new TreeState(TestInputs.read("input/bounded_15_2.txt"));
+        TreeState target = TargetBST.createTargetBST(initialState);
+        SearchResult result = ExternalSolver.solve(initialState, target, new Heuristic(target), swaps(initialState),
+                directory, 64);
+
+        assertNotNull(result);
+        assertEquals(17, result.getNumberOfSwaps());
+        assertTrue(verifier(initialState).verify(initialState, result));
+    }
+
+    private static int[] swaps(TreeState initialState) {
+        return Decomposition.allSwaps(initialState.getNumberOfNode());
+    }
+
+    private static SolutionVerifier verifier(TreeState initialState) {
+        return new SolutionVerifier(initialState.getNumberOfNode());
+    }
+}
@@ -0,0 +1,119 @@
+package com.demo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StateTableTest {
+
+    private static final int N = 15;
+
+    private static TreeState state(int swaps, long seed) {
+        return new TreeState(TestInputs.scrambled(N, swaps, seed));
+    }
+
+    @Test
+    void unseenStateHasNoScore() {
+        StateTable table = new StateTable(N);
+        assertEquals(Integer.MAX_VALUE, table.getGScore(state(3, 1)));
+        assertFalse(table.isClosed(state(3, 1)));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    void updateGScoreOnlyTakesShorterPaths() {
+        StateTable table = new StateTable(N);
+        TreeState state = state(3, 1);
+        assertTrue(table.updateGScore(state, 5));
+        assertFalse(table.updateGScore(state, 5));
+        assertFalse(table.updateGScore(state, 6));
+        assertTrue(table.updateGScore(state, 2));
+        assertEquals(2, table.getGScore(state));
+        // an equal state built separately is the same key
+        assertEquals(2, table.getGScore(new TreeState(state.toArray())));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void closedStateKeepsItsScoreAndIgnoresUpdates() {
+        StateTable table = new StateTable(N);
+        TreeState state = state(4, 2);
+        table.updateGScore(state, 4);
+        assertTrue(table.close(state, 4));
+        assertFalse(table.close(state, 4));
+        assertTrue(table.isClosed(state));
+        assertEquals(4, table.getGScore(state));
+        assertFalse(table.updateGScore(state, 1));
+        assertEquals(4, table.getGScore(state));
+    }
+
+    @Test
+    void closeInsertsAnUnseenState() {
+        StateTable table = new StateTable(N);
+        TreeState state = state(2, 3);
+        assertTrue(table.close(state, 7));
+        assertTrue(table.isClosed(state));
+        assertEquals(7, table.getGScore(state));
+    }
+
+    @Test
+    void lowerGScoreReopensAClosedState() {
+        StateTable table = new StateTable(N);
+        TreeState state = state(5, 4);
+        table.close(state, 6);
+        assertFalse(table.lowerGScore(state, 6));
+        assertFalse(table.lowerGScore(state, 8));
+        assertTrue(table.lowerGScore(state, 3));
+        assertFalse(table.isClosed(state));
+        assertEquals(3, table.getGScore(state));
+    }
+
+    @Test
+    void growsAndKeepsEveryState() {
+        StateTable table = new StateTable(N, 16);
+        long startBytes = table.footprintBytes();
+        TreeState[] states = new TreeState[5000];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = state(20, i);
+            table.updateGScore(states[i], i % 50);
+        }
+        assertTrue(table.footprintBytes() > startBytes);
+        for (int i = 0; i < states.length; i++) {
+            assertTrue(table.getGScore(states[i]) <= i % 50, "state " + i);
+        }
+    }
+
+    @Test
+    void copyKeepsEveryStateAndLeavesTheOriginalAlone() {
+        StateTable table = new StateTable(N, 16);
+        int added = 0;
+        while (table.hasRoomForOneMore()) {
+            table.updateGScore(state(20, added), added);
+            added++;
+        }
+        int capacity = table.capacity();
+        StateTable copy = table.copy(added * 4);
+        assertTrue(copy.capacity() > capacity);
+        assertEquals(added, copy.size());
+        copy.updateGScore(state(20, added), added);
+        assertEquals(added, table.size());
+        assertEquals(capacity, table.capacity());
+        for (int i = 0; i < added; i++) {
+            assertEquals(i, copy.getGScore(state(20, i)));
+        }
+        assertEquals(Integer.MAX_VALUE, table.getGScore(state(20, added)));
+    }
+
+    @Test
+    void clearForgetsEveryState() {
+        StateTable table = new StateTable(N);
+        TreeState state = state(3, 5);
+        table.close(state, 3);
+        table.clear();
+        assertEquals(0, table.size());
+        assertEquals(Integer.MAX_VALUE, table.getGScore(state));
+        assertTrue(table.updateGScore(state, 9));
+    }
+}
@@ -0,0 +1,35 @@
+package com.demo;
+
+import com.demo.util.InputParser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.SplittableRandom;
+
+// trees for the tests: files of the input directory (tests run from the project directory)
+// and target BSTs scrambled by a few swaps, so they stay close enough to solve
+final class TestInputs {
+
+    private TestInputs() {
+    }
+
+    static int[] read(String path) {
+        try {
+            return InputParser.parser(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // the target BST of values 1..n after this many random swaps of a child with its parent
+    static int[] scrambled(int n, int swaps, long seed) {
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) values[i] = i + 1;
+        TreeState state = TargetBST.createTargetBST(new TreeState(values));
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < swaps && n > 1; i++) {
+            state = state.swap(1 + random.nextInt(n - 1));
+        }
+        return state.toArray();
+    }
+}
@@ -0,0 +1,80 @@
+package com.demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TreeStateTest {
+
+    // every swap updates the hash and heuristic from the parent state, they must match a state built from scratch
+    @Test
+    void swapMatchesFullRecomputation() {
+        for (int n : new int[]{7, 15, 31, 63, 127, 255}) {
+            TreeState target = TargetBST.createTargetBST(new TreeState(TestInputs.scrambled(n, 0, 0)));
+            Heuristic heuristic = new Heuristic(target, n < 255); // no table is shipped for 255 nodes, building one is slow
+            SplittableRandom random = new SplittableRandom(n);
+            TreeState state = new TreeState(TestInputs.scrambled(n, 10, n), heuristic);
+            for (int step = 0; step < 200; step++) {
+                state = state.swap(1 + random.nextInt(n - 1));
+                TreeState rebuilt = new TreeState(state.toArray(), heuristic);
+                assertEquals(rebuilt.getZobristHash(), state.getZobristHash(), "hash, n=" + n + " step " + step);
+                assertEquals(rebuilt.hashCode(), state.hashCode());
+                assertEquals(rebuilt.getHeuristic(), state.getHeuristic(), "heuristic, n=" + n + " step " + step);
+                assertEquals(rebuilt, state);
+            }
+        }
+    }
+
+    @Test
+    void packedValuesRoundTrip() {
+        for (int n : new int[]{1, 7, 8, 9, 63, 255}) {
+            int[] values = TestInputs.scrambled(n, 30, n);
+            TreeState state = new TreeState(values);
+            assertArrayEquals(values, state.toArray(), "n=" + n);
+            for (int i = 0; i < n; i++) assertEquals(values[i], state.getValue(i));
+            assertEquals(state, new TreeState(values.clone()));
+            assertEquals(state.hashCode(), new TreeState(values.clone()).hashCode());
+        }
+    }
+
+    @Test
+    void swapExchangesChildAndParent() {
+        TreeState state = new TreeState(new int[]{4, 2, 6, 1, 3, 5, 7});
+        TreeState swapped = state.swap(4);
+        assertArrayEquals(new int[]{4, 3, 6, 1, 2, 5, 7}, swapped.toArray());
+        assertArrayEquals(new int[]{4, 2, 6, 1, 3, 5, 7}, state.toArray()); // states are immutable
+        assertEquals(state, swapped.swap(4));
+        assertEquals(state.getZobristHash(), swapped.swap(4).getZobristHash());
+    }
+
+    @Test
+    void rootHasNoParentToSwapWith() {
+        assertNull(new TreeState(new int[]{2, 1, 3}).swap(0));
+    }
+
+    @Test
+    void stateIsReadBackFromAPackedRecord() {
+        int[] values = TestInputs.scrambled(63, 30, 9);
+        TreeState state = new TreeState(values);
+        long[] record = new long[TreeState.wordCount(63) + 2];
+        System.arraycopy(state.getPackedValues(), 0, record, 1, TreeState.wordCount(63));
+        assertEquals(state, TreeState.fromPackedValues(record, 1, 63, null));
+    }
+
+    @Test
+    void heuristicNeedsAHeuristic() {
+        assertThrows(IllegalStateException.class, () -> new TreeState(new int[]{1, 2, 3}).getHeuristic());
+    }
+
+    @Test
+    void rejectsTreesThatDoNotFitThePackedState() {
+        assertThrows(IllegalArgumentException.class, () -> new TreeState(new int[TreeState.MAX_VALUE + 1]));
+        assertThrows(IllegalArgumentException.class, () -> new TreeState(new int[]{1, 256, 2}));
+        assertThrows(IllegalArgumentException.class, () -> new TreeState(new int[]{1, -1, 2}));
+    }
+}
@@ -0,0 +1,111 @@
+package com.demo.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InputParserTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsValuesAcrossLinesAndWhitespace() throws IOException {
+        Path file = write("4 2\t6\r\n1 3\n\n  5 7 \n");
+        assertArrayEquals(new int[]{4, 2, 6, 1, 3, 5, 7}, InputParser.parser(file.toString()));
+    }
+
+    @Test
+    void readsLargeFilesThroughAMapping() throws IOException {
+        StringBuilder text = new StringBuilder();
+        int n = 255;
+        for (int value = n; value >= 1; value--) text.append(value).append(" ".repeat(300)).append('\n');
+        Path file = write(text.toString()); // over the 64 KB threshold
+        assertTrue(Files.size(file) > 1 << 16);
+        int[] values = InputParser.parser(file.toString());
+        assertEquals(n, values.length);
+        assertEquals(n, values[0]);
+        assertEquals(1, values[n - 1]);
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        assertMessage("non-integer value: 'x3'", "1 x3 2");
+        assertMessage("non-integer value: '2.0'", "1 2.0 3");
+        assertMessage("non-integer value: '-'", "1 - 2");
+        assertMessage("non-integer value: '99999999999'", "1 99999999999");
+        assertMessage("empty", "  \n ");
+    }
+
+    @Test
+    void rejectsDuplicatesAndValuesOutOfRange() {
+        assertMessage("duplicate", "1 2 2");
+        assertMessage("Found 4", "1 2 4");
+        assertMessage("Found 0", "0 1 2");
+        assertMessage("Found -1", "-1 1 2");
+    }
+
+    @Test
+    void missingFileIsAnIOException() {
+        assertThrows(IOException.class, () -> InputParser.parser(directory.resolve("missing.txt").toString()));
+    }
+
+    @Test
+    void streamsOneTreePerLine() throws IOException {
+        Path file = write("2 1 3\n\n4 2 6 1 3 5 7\n   \n1");
+        try (InputParser.InstanceReader reader = InputParser.instances(file)) {
+            assertArrayEquals(new int[]{2, 1, 3}, reader.next());
+            assertEquals(1, reader.getLineNumber());
+            assertArrayEquals(new int[]{4, 2, 6, 1, 3, 5, 7}, reader.next());
+            assertEquals(3, reader.getLineNumber());
+            assertArrayEquals(new int[]{1}, reader.next()); // the last line has no newline
+            assertEquals(5, reader.getLineNumber());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void badLineIsReportedAndSkipped() throws IOException {
+        byte[] text = "2 1 3\n1 1 2\n1 2\n".getBytes(StandardCharsets.US_ASCII);
+        try (InputParser.InstanceReader reader = InputParser.instances(new ByteArrayInputStream(text))) {
+            assertArrayEquals(new int[]{2, 1, 3}, reader.next());
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, reader::next);
+            assertTrue(e.getMessage().startsWith("Line 2: "), e.getMessage());
+            assertArrayEquals(new int[]{1, 2}, reader.next());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void linesLongerThanTheBlockAreRead() throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int value = 1; value <= 255; value++) line.append(value).append(" ".repeat(300));
+        String text = "1\n" + line + "\n2 1\n";
+        try (InputParser.InstanceReader reader = InputParser.instances(new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII)))) {
+            assertArrayEquals(new int[]{1}, reader.next());
+            assertEquals(255, reader.next().length);
+            assertArrayEquals(new int[]{2, 1}, reader.next());
+            assertNull(reader.next());
+        }
+    }
+
+    private Path write(String text) throws IOException {
+        return Files.writeString(directory.resolve("tree.txt"), text);
+    }
+
+    private static void assertMessage(String part, String text) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> InputParser.parseValues(text));
+        assertTrue(e.getMessage().contains(part), "'" + e.getMessage() + "' should contain '" + part + "'");
+    }
+}